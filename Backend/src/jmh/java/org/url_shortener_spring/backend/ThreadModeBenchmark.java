@@ -0,0 +1,106 @@
+package org.url_shortener_spring.backend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+// Request throughput and latency percentiles on platform threads against virtual threads, at the same
+// connection pool size. Each request does a little CPU work, blocks outside the database (the
+// Supabase pooler round trip, writing the response), then holds one of poolSize connections for a
+// query. Platform mode runs requests on a fixed pool the size of Tomcat's default (200 threads), as
+// spring.threads.virtual.enabled=false does; virtual mode starts one virtual thread per request.
+// JMH client threads keep "clients" requests outstanding; SampleTime reports p99 per request.
+// pinned=true blocks inside a synchronized block, which pins the carrier on Java 21: it shows what the
+// ReentrantLock and DRBG changes avoid.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.virtualThreadScheduler.parallelism=8")
+@Threads(400)
+@State(Scope.Benchmark)
+public class ThreadModeBenchmark {
+
+    // Tomcat's default server.tomcat.threads.max
+    private static final int PLATFORM_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    // spring.datasource.hikari.maximum-pool-size
+    @Param({"10"})
+    public int poolSize;
+
+    @Param({"2000"})
+    public long queryMicros;
+
+    @Param({"3000"})
+    public long otherBlockingMicros;
+
+    @Param({"false", "true"})
+    public boolean pinned;
+
+    private ExecutorService executor;
+    private Semaphore connections;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        connections = new Semaphore(poolSize, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void request(Blackhole blackhole) throws Exception {
+        executor.submit(() -> {
+            Blackhole.consumeCPU(2_000);
+            if (pinned) {
+                Object monitor = new Object();
+                synchronized (monitor) {
+                    block(otherBlockingMicros);
+                }
+            } else {
+                block(otherBlockingMicros);
+            }
+            // spring.datasource.hikari.connection-timeout
+            if (!connections.tryAcquire(5, TimeUnit.SECONDS)) {
+                throw new TimeoutException("No connection within the pool timeout");
+            }
+            try {
+                block(queryMicros);
+            } finally {
+                connections.release();
+            }
+            return null;
+        }).get();
+        blackhole.consume(connections);
+    }
+
+    private static void block(long micros) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+    }
+}
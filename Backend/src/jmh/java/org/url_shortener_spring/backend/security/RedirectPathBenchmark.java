@@ -0,0 +1,213 @@
+package org.url_shortener_spring.backend.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.config.oauth2.client.CommonOAuth2Provider;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.controller.RedirectController;
+import org.url_shortener_spring.backend.security.jwt.JwtUtils;
+import org.url_shortener_spring.backend.security.jwt.VerifiedTokenCache;
+import org.url_shortener_spring.backend.security.oauth2.CustomOAuth2UserService;
+import org.url_shortener_spring.backend.security.oauth2.OAuth2AuthenticationFailureHandler;
+import org.url_shortener_spring.backend.security.oauth2.OAuth2AuthenticationSuccessHandler;
+import org.url_shortener_spring.backend.security.ratelimit.ConcurrencyLimiter;
+import org.url_shortener_spring.backend.security.ratelimit.RateLimiter;
+import org.url_shortener_spring.backend.service.ShortCodeCodec;
+import org.url_shortener_spring.backend.service.UrlMappingService;
+import org.url_shortener_spring.backend.service.UserDetailsServiceImpl;
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+import org.url_shortener_spring.backend.service.visitors.VisitorHasher;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+// Per-request cost of a public redirect through the full Spring Security chain (WebSecurityConfig as shipped,
+// then the DispatcherServlet, WebConfig's interceptors and RedirectController) against RedirectFastPathFilter
+// answering ahead of it. The lookup is stubbed identically in both, so the difference is the overhead the fast
+// path removes; fastPathFilterOnly is the filter alone without MockMvc's own per-request work.
+// Run with -prof gc to compare allocation per redirect.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedirectPathBenchmark {
+
+    private static final String SHORT_URL = "aB3dE5g";
+
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc securityChain;
+    private MockMvc fastPath;
+    private RedirectFastPathFilter fastPathFilter;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("frontend.url", "http://localhost:3000")));
+        context.register(RedirectStack.class);
+        context.refresh();
+
+        Filter springSecurityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        fastPathFilter = context.getBean(RedirectFastPathFilter.class);
+        securityChain = MockMvcBuilders.webAppContextSetup(context).addFilters(springSecurityFilterChain).build();
+        fastPath = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(fastPathFilter, springSecurityFilterChain).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int securityChain() throws Exception {
+        return securityChain.perform(get("/" + SHORT_URL).header("User-Agent", "benchmark"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int fastPath() throws Exception {
+        return fastPath.perform(get("/" + SHORT_URL).header("User-Agent", "benchmark"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int fastPathFilterOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/" + SHORT_URL);
+        request.addHeader("User-Agent", "benchmark");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fastPathFilter.doFilter(request, response, (req, res) -> {
+            throw new IllegalStateException("Redirect left the fast path");
+        });
+        return response.getStatus();
+    }
+
+    // The shipped security and MVC configuration with the redirect path's beans; everything the redirect
+    // never calls (user loading, OAuth2 handlers) is a mock.
+    @Configuration
+    @EnableWebMvc
+    @Import({WebSecurityConfig.class, WebConfig.class})
+    static class RedirectStack {
+
+        @Bean
+        AppConfig appConfig() {
+            AppConfig appConfig = new AppConfig();
+            appConfig.getVisitors().setSaltSecret(0x6a09e667f3bcc908L);
+            // Admit every request while still going through the limiter
+            appConfig.getRateLimit().setRedirectPerSecond(1e9);
+            appConfig.getRateLimit().setRedirectBurst(1_000_000_000);
+            return appConfig;
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        JwtUtils jwtUtils() {
+            return new JwtUtils(Base64.getEncoder().encodeToString(new byte[32]), 3_600_000);
+        }
+
+        @Bean
+        VerifiedTokenCache verifiedTokenCache() {
+            return mock(VerifiedTokenCache.class);
+        }
+
+        @Bean
+        UserDetailsServiceImpl userDetailsService() {
+            return mock(UserDetailsServiceImpl.class);
+        }
+
+        @Bean
+        CustomOAuth2UserService customOAuth2UserService() {
+            return mock(CustomOAuth2UserService.class);
+        }
+
+        @Bean
+        OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler() {
+            return mock(OAuth2AuthenticationSuccessHandler.class);
+        }
+
+        @Bean
+        OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler() {
+            return mock(OAuth2AuthenticationFailureHandler.class);
+        }
+
+        @Bean
+        ClientRegistrationRepository clientRegistrationRepository() {
+            return new InMemoryClientRegistrationRepository(CommonOAuth2Provider.GITHUB.getBuilder("github")
+                    .clientId("benchmark").clientSecret("benchmark").build());
+        }
+
+        @Bean
+        UrlMappingService urlMappingService() {
+            UrlMappingService urlMappingService = mock(UrlMappingService.class);
+            ResolvedUrl resolvedUrl = new ResolvedUrl(1L, ShortCodeCodec.pack(SHORT_URL), "https://example.com/landing");
+            when(urlMappingService.getOriginalUrl(anyLong(), anyLong())).thenReturn(resolvedUrl);
+            when(urlMappingService.getOriginalUrl(anyString(), anyLong())).thenReturn(resolvedUrl);
+            return urlMappingService;
+        }
+
+        @Bean
+        VisitorHasher visitorHasher(AppConfig appConfig) {
+            return new VisitorHasher(appConfig);
+        }
+
+        @Bean
+        RateLimiter rateLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+            return new RateLimiter(appConfig, meterRegistry);
+        }
+
+        @Bean
+        ConcurrencyLimiter concurrencyLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+            return new ConcurrencyLimiter(appConfig, meterRegistry);
+        }
+
+        @Bean
+        RedirectController redirectController(UrlMappingService urlMappingService, VisitorHasher visitorHasher) {
+            return new RedirectController(urlMappingService, visitorHasher);
+        }
+
+        @Bean
+        RedirectFastPathFilter redirectFastPathFilter(UrlMappingService urlMappingService, VisitorHasher visitorHasher,
+                                                      RateLimiter rateLimiter, ConcurrencyLimiter concurrencyLimiter) {
+            return new RedirectFastPathFilter(urlMappingService, visitorHasher, rateLimiter, concurrencyLimiter);
+        }
+    }
+}
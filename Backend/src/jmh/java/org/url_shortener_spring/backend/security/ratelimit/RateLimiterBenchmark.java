@@ -0,0 +1,67 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cost the rate limiter adds to a request at high thread counts: one hot client (every thread CASing the
+// same bucket, the worst case), many clients (a Caffeine lookup plus a mostly uncontended CAS), and
+// System.nanoTime alone as the floor. Limits are set high enough that every request is admitted, so the
+// admitted path is what is measured. Override the thread count with -t.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final long INTERVAL_NANOS = 1;
+    private static final long TOLERANCE_NANOS = Long.MAX_VALUE / 4;
+
+    private final TokenBucket hotBucket = new TokenBucket();
+    private final String[] clients = new String[CLIENTS];
+    private RateLimiter rateLimiter;
+
+    @Setup
+    public void setUp() {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getRateLimit().setRedirectPerSecond(1e9);
+        appConfig.getRateLimit().setRedirectBurst(Integer.MAX_VALUE);
+        rateLimiter = new RateLimiter(appConfig, new SimpleMeterRegistry());
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+            rateLimiter.acquire(RateLimiter.Route.REDIRECT, clients[i]);
+        }
+    }
+
+    @Benchmark
+    public long nanoTimeOnly() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public long oneHotBucket() {
+        return hotBucket.tryAcquire(System.nanoTime(), INTERVAL_NANOS, TOLERANCE_NANOS);
+    }
+
+    @Benchmark
+    public long manyClients() {
+        return rateLimiter.acquire(RateLimiter.Route.REDIRECT, clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+}
@@ -0,0 +1,110 @@
+package org.url_shortener_spring.backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Packed long short codes against the String path they replaced: parsing a code out of a request path,
+// then looking it up in a hash map (the resolution cache) or a sorted index (the mapping snapshot).
+// Run with -prof gc to see that the packed path allocates nothing.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShortCodeCodecBenchmark {
+
+    private static final int CODES = 100_000;
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    private String[] paths;
+    private final Map<String, Long> byString = new HashMap<>();
+    private final Map<Long, Long> byPacked = new HashMap<>();
+    private String[] sortedStrings;
+    private long[] sortedPacked;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        paths = new String[CODES];
+        sortedStrings = new String[CODES];
+        sortedPacked = new long[CODES];
+        for (int i = 0; i < CODES; i++) {
+            char[] code = new char[ShortCodeGenerator.CODE_LENGTH];
+            for (int j = 0; j < code.length; j++) {
+                code[j] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            String shortUrl = new String(code);
+            paths[i] = "/" + shortUrl;
+            byString.put(shortUrl, (long) i);
+            byPacked.put(ShortCodeCodec.pack(shortUrl), (long) i);
+            sortedStrings[i] = shortUrl;
+            sortedPacked[i] = ShortCodeCodec.pack(shortUrl);
+        }
+        Arrays.sort(sortedStrings);
+        Arrays.sort(sortedPacked);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == CODES ? 0 : index + 1;
+        return index;
+    }
+
+    private String nextPath() {
+        return paths[nextIndex()];
+    }
+
+    @Benchmark
+    public String parseString() {
+        return nextPath().substring(1);
+    }
+
+    @Benchmark
+    public long parsePacked() {
+        String path = nextPath();
+        return ShortCodeCodec.pack(path, 1, path.length());
+    }
+
+    @Benchmark
+    public Long hashLookupString() {
+        return byString.get(nextPath().substring(1));
+    }
+
+    @Benchmark
+    public Long hashLookupPacked() {
+        String path = nextPath();
+        return byPacked.get(ShortCodeCodec.pack(path, 1, path.length()));
+    }
+
+    @Benchmark
+    public int sortedLookupString() {
+        return Arrays.binarySearch(sortedStrings, nextPath().substring(1));
+    }
+
+    @Benchmark
+    public int sortedLookupPacked() {
+        String path = nextPath();
+        return Arrays.binarySearch(sortedPacked, ShortCodeCodec.pack(path, 1, path.length()));
+    }
+
+    @Benchmark
+    public String unpack() {
+        return ShortCodeCodec.unpack(sortedPacked[nextIndex()]);
+    }
+}
@@ -2,8 +2,10 @@ package org.url_shortener_spring.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UrlShortenerSpringbootApplication {
 
     public static void main(String[] args) {
@@ -5,6 +5,9 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.time.Period;
+
 // Binds application-specific configuration properties
 @Getter
 @Setter
@@ -15,6 +18,63 @@ public class AppConfig {
     // OAuth2-related configuration properties
     private final OAuth2 oAuth2 = new OAuth2();
 
+    // Short code resolution cache configuration properties
+    private final ResolutionCache resolutionCache = new ResolutionCache();
+
+    // Asynchronous click ingestion configuration properties
+    private final ClickIngestion clickIngestion = new ClickIngestion();
+
+    // Bloom filter of existing short codes configuration properties
+    private final BloomFilter bloomFilter = new BloomFilter();
+
+    // On-disk mapping snapshot configuration properties
+    private final Snapshot snapshot = new Snapshot();
+
+    // Short code generation configuration properties
+    private final ShortCode shortCode = new ShortCode();
+
+    // Bulk link creation configuration properties
+    private final BulkShorten bulkShorten = new BulkShorten();
+
+    // Per-user URL deduplication configuration properties
+    private final Dedup dedup = new Dedup();
+
+    // Daily click rollup configuration properties
+    private final ClickRollup clickRollup = new ClickRollup();
+
+    // Live click feed configuration properties
+    private final LiveClicks liveClicks = new LiveClicks();
+
+    // Unique visitor sketch configuration properties
+    private final Visitors visitors = new Visitors();
+
+    // Trending links configuration properties
+    private final Trending trending = new Trending();
+
+    // click_events partitioning configuration properties
+    private final ClickPartitions clickPartitions = new ClickPartitions();
+
+    // Cold click archive configuration properties
+    private final ClickArchive clickArchive = new ClickArchive();
+
+    // Background purge of deleted links configuration properties
+    private final LinkPurge linkPurge = new LinkPurge();
+
+    // Verified JWT cache configuration properties
+    private final TokenCache tokenCache = new TokenCache();
+
+    // Hibernate second-level cache configuration properties
+    private final EntityCache entityCache = new EntityCache();
+
+    // Password hashing pool configuration properties
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    // Per-client rate limiting configuration properties
+    private final RateLimit rateLimit = new RateLimit();
+
+    // Adaptive concurrency limit configuration properties
+    private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
     // Nested class for OAuth2 configuration
     @Getter
     @Setter
@@ -23,4 +83,350 @@ public class AppConfig {
         // Authorized redirect URI for OAuth2 login
         private String authorizedRedirectUri;
     }
+
+    // Nested class for the short code -> original URL cache
+    @Getter
+    @Setter
+    public static class ResolutionCache {
+
+        // Maximum number of cached codes (used when maxBytes is 0)
+        private long maxEntries = 100_000;
+
+        // Approximate heap budget in bytes; takes precedence over maxEntries when > 0
+        private long maxBytes = 0;
+
+        // How long a resolved code stays cached
+        private Duration ttl = Duration.ofMinutes(10);
+
+        // How long an unknown code is remembered as a miss
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+
+    // Nested class for the background click writer
+    @Getter
+    @Setter
+    public static class ClickIngestion {
+
+        // What to do with a click when the in-memory queue is full
+        public enum OverflowPolicy { BLOCK, DROP, SPILL }
+
+        // Maximum number of clicks buffered in memory
+        private int queueCapacity = 65_536;
+
+        // Maximum number of rows written per JDBC batch
+        private int batchSize = 500;
+
+        // How long the writer waits for a batch to fill before flushing
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        // Overflow policy applied when the queue is full
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        // Upper bound on how long BLOCK waits for space before dropping the click
+        private Duration blockTimeout = Duration.ofMillis(50);
+
+        // Directory used by SPILL (and failed batches) to park clicks on local disk
+        private String spillDirectory = "./click-spill";
+
+        // How long shutdown waits for the queue to drain
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    // Nested class for the existing-short-code Bloom filter
+    @Getter
+    @Setter
+    public static class BloomFilter {
+
+        // Whether redirects and code generation consult the filter at all
+        private boolean enabled = true;
+
+        // Minimum number of codes the filter is sized for; grows with the table on rebuild
+        private long expectedInsertions = 1_000_000;
+
+        // Target false-positive probability
+        private double falsePositiveRate = 0.01;
+
+        // Headroom applied to the current row count when sizing a rebuilt filter
+        private double growthFactor = 1.5;
+
+        // How far behind the id watermark catch-up re-reads, to cover out-of-order commits
+        private long catchUpOverlap = 1_000;
+    }
+
+    // Nested class for the memory-mapped short code -> URL snapshot
+    @Getter
+    @Setter
+    public static class Snapshot {
+
+        // Whether snapshots are written and used as a lookup tier
+        private boolean enabled = true;
+
+        // Location of the snapshot file on local disk
+        private String path = "./snapshot/url-mappings.snap";
+
+        // Snapshots older than this are not consulted; deleted links keep their row at least this long
+        private Duration maxAge = Duration.ofMinutes(30);
+    }
+
+    // Nested class for sequence-based short code generation
+    @Getter
+    @Setter
+    public static class ShortCode {
+
+        // Secret key of the id -> code permutation; required (no default), must stay private and
+        // must never change once codes have been issued
+        private long permutationKey;
+
+        // Number of ids a node leases from the sequence at a time (fixed when the sequence is created)
+        private int blockSize = 1_000;
+    }
+
+    // Nested class for the bulk shorten endpoint
+    @Getter
+    @Setter
+    public static class BulkShorten {
+
+        // Number of links inserted per JDBC batch and transaction
+        private int chunkSize = 500;
+    }
+
+    // Nested class for per-user destination URL deduplication
+    @Getter
+    @Setter
+    public static class Dedup {
+
+        // Whether createShortUrl returns a user's existing link for the same URL unless the request opts out
+        private boolean enabled = false;
+
+        // Maximum number of (user, URL) entries kept in memory
+        private long maxEntries = 100_000;
+
+        // How long an entry stays in memory
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    // Nested class for the click_daily_rollup table
+    @Getter
+    @Setter
+    public static class ClickRollup {
+
+        // Rebuild all past days from click_events at startup even if rollups already exist
+        private boolean forceBackfill = false;
+    }
+
+    // Nested class for the in-memory live click series and their SSE feed
+    @Getter
+    @Setter
+    public static class LiveClicks {
+
+        // Maximum number of links with a live series at once
+        private long maxLinks = 10_000;
+
+        // How long a series is kept without clicks or viewers
+        private Duration idleTimeout = Duration.ofHours(1);
+
+        // How long one SSE connection stays open before the client has to reconnect
+        private Duration emitterTimeout = Duration.ofMinutes(30);
+
+        // Events queued for one SSE connection before that client is dropped as not reading
+        private int maxQueuedEvents = 256;
+    }
+
+    // Nested class for the HyperLogLog unique-visitor sketches
+    @Getter
+    @Setter
+    public static class Visitors {
+
+        // Secret mixed into the visitor hash salt; required (no default), private, and the same on every node
+        private long saltSecret;
+
+        // How often the salt changes, in whole days. Unique-visitor totals are exact unions only within one
+        // period; a visitor returning in a later period counts again
+        private Duration saltRotation = Duration.ofDays(30);
+    }
+
+    // Nested class for the Count-Min Sketch heavy-hitter tracker
+    @Getter
+    @Setter
+    public static class Trending {
+
+        // Estimates exceed true counts by at most epsilon * window total ...
+        private double epsilon = 0.001;
+
+        // ... with probability 1 - delta
+        private double delta = 0.01;
+
+        // Number of links each window can rank
+        private int topK = 100;
+    }
+
+    // Nested class for time-range partitioning of click_events
+    @Getter
+    @Setter
+    public static class ClickPartitions {
+
+        public enum Interval { DAY, WEEK, MONTH }
+
+        // Whether click_events is converted to and maintained as a partitioned table; off unless chosen
+        private boolean enabled = false;
+
+        // Range of click dates covered by each partition
+        private Interval interval = Interval.MONTH;
+
+        // Number of future intervals to keep partitions ready for
+        private int premake = 3;
+
+        // How long raw click events are kept; whole partitions older than this are dropped (zero keeps all)
+        private Period retention = Period.ZERO;
+    }
+
+    // Nested class for the on-disk archive of old click events
+    @Getter
+    @Setter
+    public static class ClickArchive {
+
+        // Whether this node moves old click events into archive files (one node is enough)
+        private boolean enabled = false;
+
+        // Local cache of the archive files stored in click_archive
+        private String directory = "./click-archive";
+
+        // Days of raw click events kept in Postgres
+        private int hotDays = 90;
+
+        // Days of clicks per archive file
+        private int fileDays = 7;
+
+        // How long an archived day's raw rows are kept after its file is stored; must exceed the sync interval
+        private Duration deleteDelay = Duration.ofMinutes(10);
+    }
+
+    // Nested class for the background purge of deleted links
+    @Getter
+    @Setter
+    public static class LinkPurge {
+
+        // Click rows deleted per statement
+        private int batchSize = 5_000;
+
+        // Pause between batches, leaving the database to live traffic
+        private Duration batchPause = Duration.ofMillis(100);
+
+        // Tombstoned links handled per run
+        private int linksPerRun = 20;
+
+        // How long a deleted link's row is kept before purging, so nodes can read the delete back;
+        // never shorter than the snapshot max-age
+        private Duration tombstoneRetention = Duration.ofHours(1);
+    }
+
+    // Nested class for the cache of verified bearer tokens
+    @Getter
+    @Setter
+    public static class TokenCache {
+
+        // Maximum number of verified tokens kept; each entry expires with its token
+        private long maxEntries = 50_000;
+    }
+
+    // Nested class for the Hibernate second-level cache regions
+    @Getter
+    @Setter
+    public static class EntityCache {
+
+        // Users kept per region (by id, by username)
+        private long userEntries = 10_000;
+
+        // How long a cached user is trusted before it is read again
+        private Duration userTtl = Duration.ofMinutes(30);
+
+        // URL mappings kept per region (by id, by short URL)
+        private long urlMappingEntries = 100_000;
+
+        // How long a cached URL mapping is trusted before it is read again
+        private Duration urlMappingTtl = Duration.ofMinutes(10);
+    }
+
+    // Nested class for the bounded password hashing pool
+    @Getter
+    @Setter
+    public static class PasswordHashing {
+
+        // Worker threads hashing passwords; 0 uses half the available processors
+        private int threads = 0;
+
+        // Hashes allowed to wait for a worker before new ones are shed
+        private int queueCapacity = 32;
+
+        // Longest a request waits for its hash, queueing included, before it is shed
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    // Nested class for per-client token-bucket rate limits
+    @Getter
+    @Setter
+    public static class RateLimit {
+
+        private boolean enabled = true;
+
+        // Sustained redirects per second per client IP; 0 leaves redirects unlimited
+        private double redirectPerSecond = 50;
+
+        // Redirects a client may make back to back before the sustained rate applies
+        private int redirectBurst = 100;
+
+        // Sustained link creations per second per user (or anonymous IP); 0 leaves them unlimited
+        private double shortenPerSecond = 2;
+
+        // Link creations a client may make back to back before the sustained rate applies
+        private int shortenBurst = 20;
+
+        // Clients tracked per route class; the least recently seen are evicted beyond this
+        private long maxClients = 100_000;
+
+        // Clients idle this long are forgotten, which is the same as refilling their bucket
+        private Duration idleTimeout = Duration.ofMinutes(5);
+    }
+
+    // Nested class for the adaptive (AIMD) concurrency limits per endpoint class
+    @Getter
+    @Setter
+    public static class ConcurrencyLimit {
+
+        // Off until the latency targets have been set from each class's measured p99
+        private boolean enabled = false;
+
+        // Starting limit of every class, before latency samples move it
+        private int initialLimit = 20;
+
+        // Floor every class keeps however slow the database gets
+        private int minLimit = 2;
+
+        // Factor a limit is multiplied by after a window with failures or too many slow requests
+        private double backoffRatio = 0.9;
+
+        // Samples are judged per window; the limit changes at most once per window
+        private Duration window = Duration.ofSeconds(1);
+
+        // Windows with fewer samples than this never count as slow
+        private int minWindowSamples = 20;
+
+        // Share of a window's samples that may exceed the latency target before the limit shrinks
+        // (0.01 means the window's p99 is over the target)
+        private double slowFraction = 0.01;
+
+        // Per-class ceiling and latency above which a request counts as slow; set these above the class's
+        // measured p99 under normal load
+        private int redirectMaxLimit = 400;
+        private Duration redirectLatency = Duration.ofMillis(100);
+
+        private int linksMaxLimit = 100;
+        private Duration linksLatency = Duration.ofMillis(500);
+
+        private int analyticsMaxLimit = 20;
+        private Duration analyticsLatency = Duration.ofSeconds(2);
+
+        private int accountsMaxLimit = 50;
+        private Duration accountsLatency = Duration.ofSeconds(1);
+    }
 }
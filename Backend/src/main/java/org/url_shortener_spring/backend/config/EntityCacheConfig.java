@@ -0,0 +1,54 @@
+package org.url_shortener_spring.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+// Hibernate second-level cache for User and UrlMapping, by id and by natural id (username, shortUrl).
+// Hibernate's JCache region factory is handed an in-process Caffeine CacheManager whose regions are
+// created here with the entry limits and time-to-live from app.entity-cache, so no region is unbounded.
+@Configuration
+public class EntityCacheConfig {
+
+    public static final String USERS = "users";
+    public static final String USERS_BY_USERNAME = "users-by-username";
+    public static final String URL_MAPPINGS = "url-mappings";
+    public static final String URL_MAPPINGS_BY_SHORT_URL = "url-mappings-by-short-url";
+
+    // Every region the entities use
+    public static final List<String> REGIONS = List.of(USERS, USERS_BY_USERNAME, URL_MAPPINGS, URL_MAPPINGS_BY_SHORT_URL);
+
+    // Caffeine-backed JCache manager holding the second-level cache regions.
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(AppConfig appConfig) {
+        AppConfig.EntityCache config = appConfig.getEntityCache();
+        CacheManager cacheManager = new CaffeineCachingProvider().getCacheManager();
+        cacheManager.createCache(USERS, region(config.getUserEntries(), config.getUserTtl()));
+        cacheManager.createCache(USERS_BY_USERNAME, region(config.getUserEntries(), config.getUserTtl()));
+        cacheManager.createCache(URL_MAPPINGS, region(config.getUrlMappingEntries(), config.getUrlMappingTtl()));
+        cacheManager.createCache(URL_MAPPINGS_BY_SHORT_URL,
+                region(config.getUrlMappingEntries(), config.getUrlMappingTtl()));
+        return cacheManager;
+    }
+
+    // Points Hibernate's JCache region factory at the manager above instead of the provider's default one.
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxEntries, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
@@ -0,0 +1,59 @@
+package org.url_shortener_spring.backend.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.url_shortener_spring.backend.dtos.LinkPurgeDTO;
+import org.url_shortener_spring.backend.dtos.TrendingDTO;
+import org.url_shortener_spring.backend.service.LinkPurger;
+import org.url_shortener_spring.backend.service.UrlMappingService;
+import org.url_shortener_spring.backend.service.trending.TrendingLinks;
+
+import java.util.List;
+
+// Handles operational APIs for administrators
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    // Service for URL mapping operations
+    private final UrlMappingService urlMappingService;
+
+    // Background purge of deleted links
+    private final LinkPurger linkPurger;
+
+    // Get the hottest links of the last minute, 15 minutes or hour
+    @GetMapping("/trending")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TrendingDTO> getTrending(
+            @RequestParam(value = "window", defaultValue = "15m") String window,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+
+        // Parse the window label (1m, 15m or 1h)
+        TrendingLinks.Window trendingWindow = TrendingLinks.Window.fromLabel(window);
+        if (trendingWindow == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown window: " + window);
+        }
+
+        // Fetch the ranking from the heavy-hitter tracker
+        TrendingDTO trending = urlMappingService.getTrending(trendingWindow, Math.max(1, limit));
+
+        return ResponseEntity.ok(trending);
+    }
+
+    // Get deleted links still being purged, oldest first, with the click rows removed so far
+    @GetMapping("/purges")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<LinkPurgeDTO>> getPendingPurges(
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(linkPurger.pending(Math.clamp(limit, 1, 1_000)));
+    }
+}
@@ -1,11 +1,14 @@
 package org.url_shortener_spring.backend.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.url_shortener_spring.backend.dtos.LoginRequest;
 import org.url_shortener_spring.backend.dtos.RegisterRequest;
+import org.url_shortener_spring.backend.exception.PasswordHashingOverloadedException;
 import org.url_shortener_spring.backend.models.User;
 import org.url_shortener_spring.backend.service.UserDetailsImpl;
 import org.url_shortener_spring.backend.service.UserService;
@@ -36,6 +39,8 @@ public class AuthController {
             response.put("AuthProvider", user.getAuthProvider().toString());
 
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingOverloadedException ex) {
+            return overloaded(ex);
         } catch (RuntimeException ex) {
             // Handle registration errors
             Map<String, String> error = new HashMap<>();
@@ -49,6 +54,8 @@ public class AuthController {
     public ResponseEntity<?> loginUser(@RequestBody LoginRequest loginRequest) {
         try {
             return ResponseEntity.ok(userService.authenticateUser(loginRequest));
+        } catch (PasswordHashingOverloadedException ex) {
+            return overloaded(ex);
         } catch (RuntimeException ex) {
             // Handle login errors
             Map<String, String> error = new HashMap<>();
@@ -87,4 +94,13 @@ public class AuthController {
 
         return ResponseEntity.ok(urls);
     }
+
+    // Password hashing is saturated: shed the request and ask the client to retry shortly
+    private static ResponseEntity<Map<String, String>> overloaded(PasswordHashingOverloadedException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
 }
@@ -1,15 +1,17 @@
 package org.url_shortener_spring.backend.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
-import org.url_shortener_spring.backend.models.UrlMapping;
 import org.url_shortener_spring.backend.service.UrlMappingService;
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+import org.url_shortener_spring.backend.service.visitors.VisitorHasher;
 
-// Handles URL redirection based on short URL
+// Handles URL redirection based on short URL (codes RedirectFastPathFilter does not serve directly)
 @AllArgsConstructor
 @RestController
 public class RedirectController {
@@ -17,17 +19,21 @@ public class RedirectController {
     // Service for resolving short URLs to original URLs
     private UrlMappingService urlMappingService;
 
+    // Hashes the caller into an anonymous visitor key
+    private VisitorHasher visitorHasher;
+
     // Redirect to the original URL using short URL
     @GetMapping("/{shortUrl}")
-    public ResponseEntity<Void> redirect(@PathVariable String shortUrl) {
+    public ResponseEntity<Void> redirect(@PathVariable String shortUrl, HttpServletRequest request) {
 
         // Fetch URL mapping for the short URL
-        UrlMapping urlMapping = urlMappingService.getOriginalUrl(shortUrl);
+        long visitorHash = visitorHasher.hash(request.getRemoteAddr(), request.getHeader(HttpHeaders.USER_AGENT));
+        ResolvedUrl resolvedUrl = urlMappingService.getOriginalUrl(shortUrl, visitorHash);
 
-        if (urlMapping != null) {
+        if (resolvedUrl != null) {
             // Set HTTP redirect location
             HttpHeaders httpHeaders = new HttpHeaders();
-            httpHeaders.add("Location", urlMapping.getOriginalUrl());
+            httpHeaders.add("Location", resolvedUrl.originalUrl());
 
             // Return 302 redirect response
             return ResponseEntity.status(302).headers(httpHeaders).build();
@@ -1,20 +1,38 @@
 package org.url_shortener_spring.backend.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.url_shortener_spring.backend.dtos.ClickBucketDTO;
 import org.url_shortener_spring.backend.dtos.ClickEventDTO;
 import org.url_shortener_spring.backend.dtos.UrlMappingDTO;
+import org.url_shortener_spring.backend.dtos.VisitorAnalyticsDTO;
 import org.url_shortener_spring.backend.models.User;
+import org.url_shortener_spring.backend.service.BulkShortenService;
+import org.url_shortener_spring.backend.service.UrlListOrder;
 import org.url_shortener_spring.backend.service.UrlMappingService;
+import org.url_shortener_spring.backend.service.UserDetailsImpl;
 import org.url_shortener_spring.backend.service.UserService;
+import org.url_shortener_spring.backend.service.clicks.ClickGranularity;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
 
-import java.security.Principal;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 // Handles URL shortening and analytics APIs
@@ -23,44 +41,114 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class UrlMappingController {
 
+    // Upper bound on the length of one gap-filled analytics series
+    private static final long MAX_BUCKETS = 10_000;
+
+    // Page sizes for the link listing, and the header carrying the cursor of the next page
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1_000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     // Service for URL mapping operations
     private final UrlMappingService urlMappingService;
 
     // Service for user-related operations
     private final UserService userService;
 
+    // Service for creating many short URLs per request
+    private final BulkShortenService bulkShortenService;
+
+    // Mapper used to stream JSON responses
+    private final ObjectMapper objectMapper;
+
     // Create a short URL for the authenticated user
     @PostMapping("/shorten")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<UrlMappingDTO> createShortUrl(
             @RequestBody Map<String, String> request,
-            Principal principal) {
+            @AuthenticationPrincipal UserDetailsImpl principal) {
 
-        // Extract original URL from request
+        // Extract original URL and the optional dedup override from request
         String originalUrl = request.get("originalUrl");
+        String dedup = request.get("dedup");
+        if (originalUrl == null || originalUrl.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "originalUrl is required");
+        }
 
         // Get currently logged-in user
-        User user = userService.findByUsername(principal.getName());
+        User user = userService.referenceTo(principal);
 
-        // Generate short URL
+        // Generate short URL, or return the user's existing one when deduplicating
         UrlMappingDTO urlMappingDTO =
-                urlMappingService.createShortUrl(originalUrl, user);
+                urlMappingService.createShortUrl(originalUrl, user, dedup == null ? null : Boolean.valueOf(dedup));
 
         return ResponseEntity.ok(urlMappingDTO);
     }
 
-    //Get ShortUrls of user
-    @GetMapping("/myurls")
+    // Create short URLs for many links at once.
+    // Accepts a JSON array or NDJSON stream of {"originalUrl": ...} items and streams back one NDJSON line
+    // per item, {"index": n, "url": {...}} or {"index": n, "error": "..."}, in request order.
+    @PostMapping(value = "/shorten/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> createShortUrls(
+            HttpServletRequest request,
+            @AuthenticationPrincipal UserDetailsImpl principal) throws IOException {
+
+        // Resolve the user once for the whole request
+        User user = userService.referenceTo(principal);
+        InputStream body = request.getInputStream();
+
+        StreamingResponseBody responseBody = out -> bulkShortenService.shorten(body, out, user);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(responseBody);
+    }
+
+    //Get ShortUrls of user, one keyset page at a time; X-Next-Cursor carries the cursor of the next page
+    @GetMapping(value = "/myurls", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<UrlMappingDTO>> getUserUrls(Principal principal) {
+    public ResponseEntity<StreamingResponseBody> getUserUrls(
+            @RequestParam(value = "sort", defaultValue = "recent") String sort,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @AuthenticationPrincipal UserDetailsImpl principal) {
+
+        UrlListOrder order;
+        try {
+            order = UrlListOrder.valueOf(sort.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort: " + sort);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
 
         // Get authenticated user
-        User user = userService.findByUsername(principal.getName());
+        User user = userService.referenceTo(principal);
 
-        // Fetch URL mappings for this user
-        List<UrlMappingDTO> urls = urlMappingService.getUrlsByUser(user);
+        // Fetch one page of URL mappings for this user
+        UrlMappingService.UrlPage page;
+        try {
+            page = urlMappingService.getUrlsPage(user, order, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed cursor");
+        }
 
-        return ResponseEntity.ok(urls);
+        // Write the array element by element rather than rendering the whole page first
+        StreamingResponseBody responseBody = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                for (UrlMappingDTO url : page.urls()) {
+                    objectMapper.writeValue(generator, url);
+                }
+                generator.writeEndArray();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(responseBody);
     }
 
     // Get click analytics for a short URL within a date range
@@ -83,11 +171,106 @@ public class UrlMappingController {
         return ResponseEntity.ok(clickEventDTOS);
     }
 
+    // Get clicks and estimated unique visitors per day for a short URL
+    @GetMapping("/analytics/{shortUrl}/visitors")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<VisitorAnalyticsDTO> getUrlVisitors(
+            @PathVariable String shortUrl,
+            @RequestParam("startDate") String start,
+            @RequestParam("endDate") String end) {
+
+        // Parse date-time parameters
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
+        LocalDateTime startDate = LocalDateTime.parse(start, formatter);
+        LocalDateTime endDate = LocalDateTime.parse(end, formatter);
+
+        // Fetch clicks and unique visitor estimates
+        VisitorAnalyticsDTO visitors = urlMappingService.getVisitorsByDate(shortUrl, startDate, endDate);
+
+        return ResponseEntity.ok(visitors);
+    }
+
+    // Get clicks and estimated unique visitors per day across all of the user's URLs
+    @GetMapping("/totalVisitors")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<VisitorAnalyticsDTO> getTotalVisitors(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam("startDate") String start,
+            @RequestParam("endDate") String end) {
+
+        // Parse date parameters
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
+        LocalDate startDate = LocalDate.parse(start, formatter);
+        LocalDate endDate = LocalDate.parse(end, formatter);
+
+        // Get authenticated user
+        User user = userService.referenceTo(principal);
+
+        // Fetch clicks and unique visitor estimates
+        VisitorAnalyticsDTO visitors = urlMappingService.getTotalVisitorsByUserAndDate(user, startDate, endDate);
+
+        return ResponseEntity.ok(visitors);
+    }
+
+    // Stream live per-second click counts for a short URL as Server-Sent Events
+    @GetMapping(value = "/analytics/{shortUrl}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public SseEmitter getLiveClicks(@PathVariable String shortUrl) {
+        return urlMappingService.subscribeLiveClicks(shortUrl);
+    }
+
+    // Get gap-filled click counts for a short URL at minute, hour, day, week or month granularity
+    @GetMapping("/analytics/{shortUrl}/buckets")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<ClickBucketDTO>> getUrlClickBuckets(
+            @PathVariable String shortUrl,
+            @RequestParam("startDate") String start,
+            @RequestParam("endDate") String end,
+            @RequestParam(value = "granularity", defaultValue = "day") String granularity) {
+
+        // Parse date-time parameters
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
+        LocalDateTime startDate = LocalDateTime.parse(start, formatter);
+        LocalDateTime endDate = LocalDateTime.parse(end, formatter);
+        ClickGranularity clickGranularity = parseGranularity(granularity, startDate, endDate);
+
+        // Fetch aggregated click buckets
+        List<ClickBucketDTO> buckets =
+                urlMappingService.getClickBuckets(shortUrl, startDate, endDate, clickGranularity);
+
+        return ResponseEntity.ok(buckets);
+    }
+
+    // Get gap-filled click counts across all of the user's URLs at the given granularity
+    @GetMapping("/totalClicks/buckets")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<ClickBucketDTO>> getTotalClickBuckets(
+            @AuthenticationPrincipal UserDetailsImpl principal,
+            @RequestParam("startDate") String start,
+            @RequestParam("endDate") String end,
+            @RequestParam(value = "granularity", defaultValue = "day") String granularity) {
+
+        // Parse date parameters into the whole-day range [startDate 00:00, endDate 23:59:59.999999999]
+        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
+        LocalDateTime startDate = LocalDate.parse(start, formatter).atStartOfDay();
+        LocalDateTime endDate = LocalDate.parse(end, formatter).atTime(LocalTime.MAX);
+        ClickGranularity clickGranularity = parseGranularity(granularity, startDate, endDate);
+
+        // Get authenticated user
+        User user = userService.referenceTo(principal);
+
+        // Fetch aggregated click buckets
+        List<ClickBucketDTO> buckets =
+                urlMappingService.getTotalClickBuckets(user, startDate, endDate, clickGranularity);
+
+        return ResponseEntity.ok(buckets);
+    }
+
     // Get total clicks grouped by date for the authenticated user
     @GetMapping("/totalClicks")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Map<LocalDate, Long>> getTotalClicks(
-            Principal principal,
+            @AuthenticationPrincipal UserDetailsImpl principal,
             @RequestParam("startDate") String start,
             @RequestParam("endDate") String end) {
 
@@ -97,7 +280,7 @@ public class UrlMappingController {
         LocalDate endDate = LocalDate.parse(end, formatter);
 
         // Get authenticated user
-        User user = userService.findByUsername(principal.getName());
+        User user = userService.referenceTo(principal);
 
         // Fetch total clicks per date
         Map<LocalDate, Long> totalClicks =
@@ -106,15 +289,30 @@ public class UrlMappingController {
         return ResponseEntity.ok(totalClicks);
     }
 
+    // Parses a granularity name and rejects ranges that would produce too many buckets
+    private static ClickGranularity parseGranularity(String granularity, LocalDateTime start, LocalDateTime end) {
+        ClickGranularity clickGranularity;
+        try {
+            clickGranularity = ClickGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown granularity: " + granularity);
+        }
+        if (clickGranularity.bucketCount(start, end) > MAX_BUCKETS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range too large for " + granularity + " granularity; at most " + MAX_BUCKETS + " buckets");
+        }
+        return clickGranularity;
+    }
+
     // Delete a short URL owned by the authenticated user
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Void> deleteShortUrl(
             @PathVariable Long id,
-            Principal principal
+            @AuthenticationPrincipal UserDetailsImpl principal
     ) {
         // Get authenticated user
-        User user = userService.findByUsername(principal.getName());
+        User user = userService.referenceTo(principal);
 
         // Delegate deletion to service layer
         urlMappingService.deleteShortUrl(id, user);
@@ -0,0 +1,9 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.Data;
+
+// One link in a bulk shorten request
+@Data
+public class BulkShortenItem {
+    private String originalUrl;
+}
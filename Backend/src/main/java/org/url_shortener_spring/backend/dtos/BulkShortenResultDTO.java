@@ -0,0 +1,27 @@
+package org.url_shortener_spring.backend.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+// Outcome of one item of a bulk shorten request; exactly one of url and error is set
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkShortenResultDTO {
+    private int index;
+    private UrlMappingDTO url;
+    private String error;
+
+    public static BulkShortenResultDTO success(int index, UrlMappingDTO url) {
+        BulkShortenResultDTO result = new BulkShortenResultDTO();
+        result.setIndex(index);
+        result.setUrl(url);
+        return result;
+    }
+
+    public static BulkShortenResultDTO failure(int index, String error) {
+        BulkShortenResultDTO result = new BulkShortenResultDTO();
+        result.setIndex(index);
+        result.setError(error);
+        return result;
+    }
+}
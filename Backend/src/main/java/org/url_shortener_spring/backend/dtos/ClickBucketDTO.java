@@ -0,0 +1,13 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class ClickBucketDTO {
+    private LocalDateTime bucket;
+    private long count;
+}
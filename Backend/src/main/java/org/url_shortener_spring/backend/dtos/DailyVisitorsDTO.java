@@ -0,0 +1,14 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class DailyVisitorsDTO {
+    private LocalDate clickDate;
+    private long clicks;
+    private long uniqueVisitors;
+}
@@ -0,0 +1,14 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class LinkPurgeDTO {
+    private Long id;
+    private LocalDateTime deletedAt;
+    private long purgedClickRows;
+}
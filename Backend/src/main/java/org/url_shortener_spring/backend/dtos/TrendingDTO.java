@@ -0,0 +1,16 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Hottest links of one window; each estimate may exceed the true count by up to errorBound
+@Data
+@AllArgsConstructor
+public class TrendingDTO {
+    private String window;
+    private long totalClicks;
+    private long errorBound;
+    private List<TrendingLinkDTO> links;
+}
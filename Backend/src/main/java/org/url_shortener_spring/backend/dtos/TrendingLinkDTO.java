@@ -0,0 +1,13 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TrendingLinkDTO {
+    private Long id;
+    private String shortUrl;
+    private String originalUrl;
+    private long estimatedClicks;
+}
@@ -0,0 +1,15 @@
+package org.url_shortener_spring.backend.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Per-day clicks and estimated unique visitors, plus the estimate for the whole range
+@Data
+@AllArgsConstructor
+public class VisitorAnalyticsDTO {
+    private List<DailyVisitorsDTO> days;
+    private long totalClicks;
+    private long uniqueVisitors;
+}
@@ -0,0 +1,19 @@
+package org.url_shortener_spring.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Thrown when the password hashing pool is saturated and the request is shed instead of queued
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    // Create exception with error message
+    public PasswordHashingOverloadedException(String message) {
+        super(message);
+    }
+
+    // Create exception with message and root cause
+    public PasswordHashingOverloadedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
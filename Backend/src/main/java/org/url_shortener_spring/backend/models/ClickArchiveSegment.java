@@ -0,0 +1,29 @@
+package org.url_shortener_spring.backend.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One click archive file (see ClickArchiveService) covering the days [fromDay, toDay), stored in the
+// database so every node can map it
+@Data
+@Entity
+@Table(name = "click_archive")
+public class ClickArchiveSegment {
+    @Id
+    @Column(name = "from_day")
+    private LocalDate fromDay;
+
+    @Column(name = "to_day", nullable = false)
+    private LocalDate toDay;
+
+    private long eventCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private byte[] content;
+}
@@ -0,0 +1,27 @@
+package org.url_shortener_spring.backend.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Number of clicks per short URL per day, maintained alongside click_events
+@Data
+@Entity
+@Table(name = "click_daily_rollup")
+public class ClickDailyRollup {
+    @EmbeddedId
+    private Key id;
+    private long clickCount;
+
+    @Data
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "url_mapping_id")
+        private Long urlMappingId;
+
+        @Column(name = "click_day")
+        private LocalDate clickDay;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Data;
 
 import java.time.LocalDateTime;
 
+// Once ClickPartitionManager is enabled the table is range-partitioned by click_date; its primary key is
+// then (id, click_date), and id is filled by the click_events_id_seq default.
 @Data
 @Entity
 public class ClickEvents {
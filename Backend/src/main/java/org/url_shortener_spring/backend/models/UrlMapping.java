@@ -2,21 +2,56 @@ package org.url_shortener_spring.backend.models;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.SQLRestriction;
+import org.url_shortener_spring.backend.config.EntityCacheConfig;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Deleted links keep their row as a tombstone until LinkPurger removes them; entity reads never see them
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.URL_MAPPINGS)
+@NaturalIdCache(region = EntityCacheConfig.URL_MAPPINGS_BY_SHORT_URL)
+@SQLRestriction("deleted_at IS NULL")
+@Table(indexes = {
+        @Index(name = "idx_url_mapping_short_code", columnList = "short_code"),
+        @Index(name = "idx_url_mapping_user_digest", columnList = "user_id, url_digest"),
+        @Index(name = "idx_url_mapping_user_created", columnList = "user_id, created_date, id"),
+        @Index(name = "idx_url_mapping_deleted_at", columnList = "deleted_at")
+})
 public class UrlMapping {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String originalUrl;
+
+    // Natural id: UrlMappingRepository.findByShortUrl resolves it through the second-level cache
+    @NaturalId
     private String shortUrl;
+
+    // shortUrl packed by ShortCodeCodec; null only for rows created before the column existed
+    @Column(name = "short_code")
+    private Long shortCode;
+
+    // UrlCanonicalizer digest of originalUrl, for per-user deduplication; null for rows created before it existed
+    @Column(name = "url_digest")
+    private Long urlDigest;
+    // Written only by ClickCounterService's JDBC updates, never by Hibernate, so a cached entity's stale
+    // value cannot overwrite them; it lags in the second-level cache, so counts are always read by query
+    @Column(updatable = false)
     private int clickCount=0;
     private LocalDateTime createdDate;
 
+    // Set when the link is deleted; the row and its clicks are purged in the background
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @ManyToOne
     @JoinColumn(name="user_id")
     private User user;
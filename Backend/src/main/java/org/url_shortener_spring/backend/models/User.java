@@ -3,6 +3,11 @@ package org.url_shortener_spring.backend.models;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.url_shortener_spring.backend.config.EntityCacheConfig;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -10,6 +15,9 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheConfig.USERS)
+@NaturalIdCache(region = EntityCacheConfig.USERS_BY_USERNAME)
 @Table(name="users",uniqueConstraints = {
         @UniqueConstraint(columnNames = "email"),
         @UniqueConstraint(columnNames = "username")
@@ -22,6 +30,8 @@ public class User {
     @Column(nullable = false)
     private String email;
 
+    // Natural id: UserRepository.findByUsername resolves it through the second-level cache
+    @NaturalId
     @Column(nullable = false)
     private String username;
 
@@ -0,0 +1,29 @@
+package org.url_shortener_spring.backend.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// Serialized HyperLogLog sketch of the distinct visitors of a short URL on one day
+@Data
+@Entity
+@Table(name = "visitor_sketch")
+public class VisitorSketch {
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private byte[] sketch;
+
+    @Data
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "url_mapping_id")
+        private Long urlMappingId;
+
+        @Column(name = "visit_day")
+        private LocalDate visitDay;
+    }
+}
@@ -1,22 +1,54 @@
 package org.url_shortener_spring.backend.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.url_shortener_spring.backend.models.UrlMapping;
 import org.url_shortener_spring.backend.models.User;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 // Marks this interface as a Spring Data repository
 @Repository
-public interface UrlMappingRepository extends JpaRepository<UrlMapping, Long> {
+public interface UrlMappingRepository extends JpaRepository<UrlMapping, Long>, UrlMappingRepositoryCustom {
 
     // Check if a short URL already exists
     boolean existsByShortUrl(String shortUrl);
 
-    // Retrieve URL mapping using the short URL
-    UrlMapping findByShortUrl(String shortUrl);
+    // Retrieve URL mapping using the packed short code
+    UrlMapping findByShortCode(Long shortCode);
 
-    // Fetch all URL mappings created by a specific user
-    List<UrlMapping> findByUser(User user);
+    // Retrieve a user's URL mappings whose destination has the given digest
+    List<UrlMapping> findByUserAndUrlDigest(User user, Long urlDigest);
+
+    // First page of a user's links, newest first
+    @Query("SELECT new org.url_shortener_spring.backend.repository.UrlMappingSummary(" +
+            "m.id, m.originalUrl, m.shortUrl, m.clickCount, m.createdDate) FROM UrlMapping m " +
+            "WHERE m.user.id = :userId ORDER BY m.createdDate DESC, m.id DESC")
+    List<UrlMappingSummary> findRecentByUser(@Param("userId") Long userId, Limit limit);
+
+    // Next page of a user's links, newest first, after the (createdDate, id) of the previous page's last row
+    @Query("SELECT new org.url_shortener_spring.backend.repository.UrlMappingSummary(" +
+            "m.id, m.originalUrl, m.shortUrl, m.clickCount, m.createdDate) FROM UrlMapping m " +
+            "WHERE m.user.id = :userId AND (m.createdDate < :createdDate OR (m.createdDate = :createdDate AND m.id < :id)) " +
+            "ORDER BY m.createdDate DESC, m.id DESC")
+    List<UrlMappingSummary> findRecentByUserAfter(@Param("userId") Long userId, @Param("createdDate") LocalDateTime createdDate,
+                                                  @Param("id") Long id, Limit limit);
+
+    // First page of a user's links, most clicked first
+    @Query("SELECT new org.url_shortener_spring.backend.repository.UrlMappingSummary(" +
+            "m.id, m.originalUrl, m.shortUrl, m.clickCount, m.createdDate) FROM UrlMapping m " +
+            "WHERE m.user.id = :userId ORDER BY m.clickCount DESC, m.id DESC")
+    List<UrlMappingSummary> findMostClickedByUser(@Param("userId") Long userId, Limit limit);
+
+    // Next page of a user's links, most clicked first, after the (clickCount, id) of the previous page's last row
+    @Query("SELECT new org.url_shortener_spring.backend.repository.UrlMappingSummary(" +
+            "m.id, m.originalUrl, m.shortUrl, m.clickCount, m.createdDate) FROM UrlMapping m " +
+            "WHERE m.user.id = :userId AND (m.clickCount < :clickCount OR (m.clickCount = :clickCount AND m.id < :id)) " +
+            "ORDER BY m.clickCount DESC, m.id DESC")
+    List<UrlMappingSummary> findMostClickedByUserAfter(@Param("userId") Long userId, @Param("clickCount") int clickCount,
+                                                       @Param("id") Long id, Limit limit);
 }
@@ -0,0 +1,10 @@
+package org.url_shortener_spring.backend.repository;
+
+import org.url_shortener_spring.backend.models.UrlMapping;
+
+// URL mapping lookups implemented against Hibernate directly rather than derived from the method name
+public interface UrlMappingRepositoryCustom {
+
+    // Retrieve URL mapping using the short URL, through the natural-id cache; null if absent or deleted
+    UrlMapping findByShortUrl(String shortUrl);
+}
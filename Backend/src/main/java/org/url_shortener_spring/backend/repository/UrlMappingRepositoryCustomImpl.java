@@ -0,0 +1,24 @@
+package org.url_shortener_spring.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import org.url_shortener_spring.backend.models.UrlMapping;
+
+// Loads URL mappings by short URL with Hibernate's natural-id API, so repeat lookups are answered from
+// the natural-id and entity caches instead of running a query.
+// Read-only transaction like Spring Data's own finders, so the unwrapped session stays open for the lookup
+@Transactional(readOnly = true)
+public class UrlMappingRepositoryCustomImpl implements UrlMappingRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public UrlMapping findByShortUrl(String shortUrl) {
+        UrlMapping urlMapping = entityManager.unwrap(Session.class).bySimpleNaturalId(UrlMapping.class).load(shortUrl);
+        // A tombstoned link stays in the entity cache until it is purged or expires; it no longer resolves
+        return urlMapping == null || urlMapping.getDeletedAt() != null ? null : urlMapping;
+    }
+}
@@ -0,0 +1,7 @@
+package org.url_shortener_spring.backend.repository;
+
+import java.time.LocalDateTime;
+
+// Flat row for listing a user's links; selected column by column so neither User nor clickEvents is loaded
+public record UrlMappingSummary(Long id, String originalUrl, String shortUrl, int clickCount, LocalDateTime createdDate) {
+}
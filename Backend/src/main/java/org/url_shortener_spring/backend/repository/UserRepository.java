@@ -8,10 +8,7 @@ import java.util.Optional;
 
 // Marks this interface as a Spring Data repository
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-    // Find user by username
-    Optional<User> findByUsername(String username);
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     // Find user by email address
     Optional<User> findByEmail(String email);
@@ -0,0 +1,12 @@
+package org.url_shortener_spring.backend.repository;
+
+import org.url_shortener_spring.backend.models.User;
+
+import java.util.Optional;
+
+// User lookups implemented against Hibernate directly rather than derived from the method name
+public interface UserRepositoryCustom {
+
+    // Find user by username, through the natural-id cache
+    Optional<User> findByUsername(String username);
+}
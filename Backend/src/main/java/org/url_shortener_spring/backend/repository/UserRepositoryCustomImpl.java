@@ -0,0 +1,25 @@
+package org.url_shortener_spring.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import org.url_shortener_spring.backend.models.User;
+
+import java.util.Optional;
+
+// Loads users by username with Hibernate's natural-id API. Unlike a derived query, the lookup goes
+// username -> id through the natural-id cache and id -> user through the entity cache, so repeat
+// lookups do not reach the database.
+// Read-only transaction like Spring Data's own finders, so the unwrapped session stays open for the lookup
+@Transactional(readOnly = true)
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class).bySimpleNaturalId(User.class).loadOptional(username);
+    }
+}
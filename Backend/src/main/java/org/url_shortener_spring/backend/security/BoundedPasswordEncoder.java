@@ -0,0 +1,127 @@
+package org.url_shortener_spring.backend.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.exception.PasswordHashingOverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs a slow password encoder (BCrypt) on its own small pool instead of the request thread.
+// The pool has a fixed number of threads and a bounded queue, so a signup burst or a credential-stuffing
+// wave can occupy at most those threads' cores; the rest of the app, redirects included, keeps its CPU.
+// When the queue is full, or a caller has waited longer than max-wait, the call is shed with
+// PasswordHashingOverloadedException (503) rather than piling up behind the hashes already queued.
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter encodeRejected;
+    private final Counter matchesRejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, AppConfig.PasswordHashing config, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxWait = config.getMaxWait();
+        int threads = config.getThreads() > 0 ? config.getThreads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.encodeRejected = rejectedCounter(meterRegistry, "encode");
+        this.matchesRejected = rejectedCounter(meterRegistry, "matches");
+        Gauge.builder("password.hash.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes running")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword)), encodeRejected);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> matchesTimer.recordCallable(() -> delegate.matches(rawPassword, encodedPassword)), matchesRejected);
+    }
+
+    // Only inspects the stored hash's cost; cheap enough to stay on the caller's thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> hash, Counter rejected) {
+        Future<T> future;
+        try {
+            future = executor.submit(hash);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingOverloadedException("Too many sign-in requests, try again shortly", e);
+        }
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Drops the hash if it is still queued; one already running finishes and is discarded
+            future.cancel(false);
+            rejected.increment();
+            throw new PasswordHashingOverloadedException("Too many sign-in requests, try again shortly", e);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingOverloadedException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hash.duration")
+                .description("Time spent hashing or verifying a password, excluding queueing")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String operation) {
+        return Counter.builder("password.hash.rejected")
+                .description("Password hashes shed because the pool was saturated")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    // Stops the pool on shutdown; hashes already running are allowed to finish.
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
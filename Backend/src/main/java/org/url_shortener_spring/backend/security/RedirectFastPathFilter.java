@@ -0,0 +1,101 @@
+package org.url_shortener_spring.backend.security;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.security.ratelimit.ConcurrencyLimiter;
+import org.url_shortener_spring.backend.security.ratelimit.RateLimiter;
+import org.url_shortener_spring.backend.service.ShortCodeCodec;
+import org.url_shortener_spring.backend.service.ShortCodeGenerator;
+import org.url_shortener_spring.backend.service.UrlMappingService;
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+import org.url_shortener_spring.backend.service.visitors.VisitorHasher;
+
+import java.io.IOException;
+
+// Serves public short-code redirects before the Spring Security filter chain and the DispatcherServlet.
+// Redirects are anonymous, so the JWT filter, OAuth2 login filters and CORS processing are pure overhead
+// for them. Only GET/HEAD requests for exactly one path segment of ShortCodeGenerator.CODE_LENGTH Base62
+// characters are handled here; everything else, including /api/**, continues through the unchanged security chain.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RedirectFastPathFilter implements Filter {
+
+    private static final int SHORT_URL_LENGTH = ShortCodeGenerator.CODE_LENGTH;
+
+    // Service for resolving short URLs to original URLs
+    private final UrlMappingService urlMappingService;
+
+    // Hashes the caller into an anonymous visitor key
+    private final VisitorHasher visitorHasher;
+
+    // Per-IP admission control, checked before the lookup
+    private final RateLimiter rateLimiter;
+
+    // Adaptive limit on redirects in flight, so a slow database refuses redirects instead of queueing them
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    // Resolves the code and writes the 302/404 directly, or passes the request on.
+    @Override
+    public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) req;
+        String uri = request.getRequestURI();
+        int codeStart = request.getContextPath().length() + 1;
+        long shortCode = isRedirectMethod(request.getMethod()) && isShortCodePath(uri, codeStart)
+                ? ShortCodeCodec.pack(uri, codeStart, uri.length())
+                : ShortCodeCodec.INVALID;
+        if (!ShortCodeCodec.isValid(shortCode)) {
+            chain.doFilter(req, res);
+            return;
+        }
+
+        // The code is parsed straight from the path into a primitive; no substring is created
+        HttpServletResponse response = (HttpServletResponse) res;
+        String clientAddress = request.getRemoteAddr();
+        long wait = rateLimiter.acquire(RateLimiter.Route.REDIRECT, clientAddress);
+        if (wait != 0) {
+            RateLimiter.reject(response, wait);
+            return;
+        }
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(ConcurrencyLimiter.EndpointClass.REDIRECT);
+        if (permit == null) {
+            ConcurrencyLimiter.reject(response);
+            return;
+        }
+        long visitorHash = visitorHasher.hash(clientAddress, request.getHeader(HttpHeaders.USER_AGENT));
+        ResolvedUrl resolvedUrl;
+        boolean failed = true;
+        try {
+            resolvedUrl = urlMappingService.getOriginalUrl(shortCode, visitorHash);
+            failed = false;
+        } finally {
+            permit.release(failed);
+        }
+        if (resolvedUrl != null) {
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader("Location", resolvedUrl.originalUrl());
+        } else {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+        response.setContentLength(0);
+    }
+
+    private static boolean isRedirectMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    // True for "<contextPath>/XXXXXXX": one segment of SHORT_URL_LENGTH characters (Base62 is checked while packing).
+    private static boolean isShortCodePath(String uri, int codeStart) {
+        return uri.length() == codeStart + SHORT_URL_LENGTH && uri.charAt(codeStart - 1) == '/';
+    }
+}
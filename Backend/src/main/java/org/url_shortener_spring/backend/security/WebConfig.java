@@ -1,14 +1,29 @@
 package org.url_shortener_spring.backend.security;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.url_shortener_spring.backend.security.ratelimit.ConcurrencyLimitInterceptor;
+import org.url_shortener_spring.backend.security.ratelimit.ConcurrencyLimiter;
+import org.url_shortener_spring.backend.security.ratelimit.RateLimitInterceptor;
+import org.url_shortener_spring.backend.security.ratelimit.RateLimiter;
 
 // Configuration class for web settings, including CORS.
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    // Click and visitor analytics endpoints, which share one concurrency limit
+    private static final String[] ANALYTICS_PATHS = {
+            "/api/urls/analytics/**", "/api/urls/totalClicks", "/api/urls/totalClicks/**", "/api/urls/totalVisitors"
+    };
+
+    private final RateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+
     @Value("${frontend.url}")
     private String frontEndUrl;
 
@@ -19,6 +34,32 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(frontEndUrl)
                 .allowedMethods("GET", "POST", "PUT", "OPTIONS", "DELETE")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Next-Cursor", "Retry-After")
                 .allowCredentials(true);
     }
-}
\ No newline at end of file
+
+    // Rate-limits redirects that reach RedirectController (RedirectFastPathFilter checks its own) and link creation,
+    // then holds a concurrency slot per endpoint class. Bulk creation and live click streams are long-lived by
+    // design and are left out of the latency-driven limits.
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter, RateLimiter.Route.REDIRECT))
+                .addPathPatterns("/*")
+                .excludePathPatterns("/error");
+        registry.addInterceptor(new RateLimitInterceptor(rateLimiter, RateLimiter.Route.SHORTEN))
+                .addPathPatterns("/api/urls/shorten", "/api/urls/shorten/bulk");
+
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimiter, ConcurrencyLimiter.EndpointClass.REDIRECT))
+                .addPathPatterns("/*")
+                .excludePathPatterns("/error");
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimiter, ConcurrencyLimiter.EndpointClass.ANALYTICS))
+                .addPathPatterns(ANALYTICS_PATHS)
+                .excludePathPatterns("/api/urls/analytics/*/live");
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimiter, ConcurrencyLimiter.EndpointClass.LINKS))
+                .addPathPatterns("/api/urls/**")
+                .excludePathPatterns(ANALYTICS_PATHS)
+                .excludePathPatterns("/api/urls/shorten/bulk");
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimiter, ConcurrencyLimiter.EndpointClass.ACCOUNTS))
+                .addPathPatterns("/api/auth/**");
+    }
+}
@@ -1,6 +1,8 @@
 package org.url_shortener_spring.backend.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -17,7 +19,10 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.url_shortener_spring.backend.config.AppConfig;
 import org.url_shortener_spring.backend.security.jwt.JwtAuthenticationFilter;
+import org.url_shortener_spring.backend.security.jwt.JwtUtils;
+import org.url_shortener_spring.backend.security.jwt.VerifiedTokenCache;
 import org.url_shortener_spring.backend.security.oauth2.CustomOAuth2UserService;
 import org.url_shortener_spring.backend.security.oauth2.OAuth2AuthenticationFailureHandler;
 import org.url_shortener_spring.backend.security.oauth2.OAuth2AuthenticationSuccessHandler;
@@ -34,17 +39,29 @@ public class WebSecurityConfig {
     private final CustomOAuth2UserService customOAuth2UserService;
     private final OAuth2AuthenticationSuccessHandler oAuth2AuthenticationSuccessHandler;
     private final OAuth2AuthenticationFailureHandler oAuth2AuthenticationFailureHandler;
+    private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AppConfig appConfig;
+    private final MeterRegistry meterRegistry;
 
     // Provides the JWT authentication filter.
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter();
+        return new JwtAuthenticationFilter(jwtUtils, verifiedTokenCache);
     }
 
-    // Configures BCrypt password encoder.
+    // Keeps the JWT filter out of the servlet container's chain; it runs inside the security chain only.
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    // Configures BCrypt password encoder, run on a bounded pool off the request threads.
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), appConfig.getPasswordHashing(), meterRegistry);
     }
 
     // Exposes the AuthenticationManager bean.
@@ -78,6 +95,7 @@ public class WebSecurityConfig {
                         .requestMatchers("/api/auth/public/**").permitAll()
                         .requestMatchers("/api/auth/me").authenticated()
                         .requestMatchers("/api/urls/**").authenticated()
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN")
                         .requestMatchers("/{shortUrl}").permitAll()      // Public short URL redirection
                         .anyRequest().authenticated()
                 )
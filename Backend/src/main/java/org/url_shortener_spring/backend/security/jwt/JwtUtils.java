@@ -1,6 +1,7 @@
 package org.url_shortener_spring.backend.security.jwt;
 
-import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -10,18 +11,27 @@ import org.springframework.stereotype.Component;
 import org.url_shortener_spring.backend.service.UserDetailsImpl;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
 import java.util.Date;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtUtils {
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    // Claim carrying the user's id, so requests never need to look the user up
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
 
-    @Value("${jwt.expiration}")
-    private int jwtExpirationMs;
+    private final int jwtExpirationMs;
+
+    // Signing key and parser are built once; both are immutable and thread-safe
+    private final SecretKey key;
+    private final JwtParser parser;
+
+    public JwtUtils(@Value("${jwt.secret}") String jwtSecret, @Value("${jwt.expiration}") int jwtExpirationMs) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.parser = Jwts.parser().verifyWith(key).build();
+    }
 
     // Extract JWT token from header ( Authorization -> Bearer <Token> )
     public String getJwtFromHeader(HttpServletRequest request) {
@@ -40,38 +50,17 @@ public class JwtUtils {
                 .collect(Collectors.joining(","));
         return Jwts.builder()
                 .subject(username)
-                .claim("roles", roles)
+                .claim(USER_ID_CLAIM, userDetails.getId())
+                .claim(ROLES_CLAIM, roles)
                 .issuedAt(new Date())
                 .expiration(new Date((new Date().getTime() + jwtExpirationMs)))
-                .signWith(key())
+                .signWith(key)
                 .compact();
     }
 
-    //Get Username from JWT
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                .verifyWith((SecretKey) key())
-                .build().parseSignedClaims(token)
-                .getPayload().getSubject();
-    }
-
-    //Creates Signing Key
-    private Key key(){
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
-    }
-
-    //Validate the JWT Tokens
-    public boolean validateToken(String authToken) {
-        try {
-            Jwts.parser().verifyWith((SecretKey) key())
-                    .build().parseSignedClaims(authToken);
-            return true;
-        } catch (JwtException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    // Verifies the signature and expiry and returns the claims, in one parse.
+    // Throws JwtException or IllegalArgumentException for tokens that do not verify.
+    public Claims verify(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
-}
\ No newline at end of file
+}
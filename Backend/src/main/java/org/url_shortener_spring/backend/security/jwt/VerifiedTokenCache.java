@@ -0,0 +1,123 @@
+package org.url_shortener_spring.backend.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.service.UserDetailsImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Turns bearer tokens into principals, verifying each distinct token once.
+// A token is verified and parsed in a single pass, and the principal (id, username, roles) is built
+// from its claims without touching the users table. The result is cached under the token's SHA-256
+// digest until the token itself expires, so repeat requests skip parsing and the signature check.
+// Like any stateless JWT, a role change or deleted account takes effect when the token expires.
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtUtils jwtUtils;
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, Verified> cache;
+
+    public VerifiedTokenCache(JwtUtils jwtUtils, UserDetailsService userDetailsService, AppConfig appConfig,
+                              MeterRegistry meterRegistry) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(appConfig.getTokenCache().getMaxEntries())
+                .expireAfter(new Expiry<String, Verified>() {
+                    @Override
+                    public long expireAfterCreate(String key, Verified value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, value.expiresAt() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Verified value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Verified value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // Publishes hit/miss/eviction counters as cache.* meters
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified");
+    }
+
+    // Principal for a bearer token, or null if the token does not verify.
+    public UserDetailsImpl principalFor(String token) {
+        String digest = digest(token);
+        Verified verified = cache.getIfPresent(digest);
+        if (verified != null) {
+            return verified.principal();
+        }
+
+        Claims claims;
+        try {
+            claims = jwtUtils.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            return null;
+        }
+        UserDetailsImpl principal = principalFrom(claims);
+        Date expiration = claims.getExpiration();
+        if (principal != null && expiration != null) {
+            cache.put(digest, new Verified(principal, expiration.getTime()));
+        }
+        return principal;
+    }
+
+    private UserDetailsImpl principalFrom(Claims claims) {
+        Number userId = claims.get(JwtUtils.USER_ID_CLAIM, Number.class);
+        if (userId == null) {
+            // Issued before tokens carried the id: resolve the user once, then serve it from the cache
+            try {
+                UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+                return userDetails instanceof UserDetailsImpl principal ? principal : null;
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+        String roles = claims.get(JwtUtils.ROLES_CLAIM, String.class);
+        List<GrantedAuthority> authorities = roles == null || roles.isBlank() ? List.of()
+                : Arrays.stream(roles.split(",")).<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+        return new UserDetailsImpl(userId.longValue(), claims.getSubject(), null, null, authorities);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // A verified principal and the token's expiry in epoch milliseconds
+    private record Verified(UserDetailsImpl principal, long expiresAt) {
+    }
+}
@@ -0,0 +1,115 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.LongSupplier;
+
+// Concurrency limit of one endpoint class, adjusted by additive increase / multiplicative decrease.
+// Completed requests are collected into windows and the limit moves at most once per window: it is
+// multiplied by the backoff ratio when the window saw a failure, or when more than the slow fraction of
+// its samples ran over the latency target (the window's tail latency is above the target); otherwise it
+// grows by one if at least half the limit was in use. A single slow request therefore never shrinks it.
+// Requests beyond the limit are refused rather than queued. All state is atomic, so acquiring and
+// releasing take no lock.
+final class AimdLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // The limit as double bits, so fractional backoff survives repeated decreases
+    private final AtomicLong limitBits;
+
+    // Current window: its start and what completed in it
+    private final AtomicLong windowStart;
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicInteger slowSamples = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    private final double minLimit;
+    private final double maxLimit;
+    private final double backoffRatio;
+    private final long latencyTargetNanos;
+    private final long windowNanos;
+    private final int minSamples;
+    private final double slowFraction;
+
+    // System.nanoTime outside tests
+    private final LongSupplier nanoClock;
+
+    AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyTargetNanos,
+              long windowNanos, int minSamples, double slowFraction) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, latencyTargetNanos, windowNanos, minSamples, slowFraction,
+                System::nanoTime);
+    }
+
+    AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyTargetNanos,
+              long windowNanos, int minSamples, double slowFraction, LongSupplier nanoClock) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.windowNanos = windowNanos;
+        this.minSamples = Math.max(1, minSamples);
+        this.slowFraction = slowFraction;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(
+                Math.clamp(initialLimit, this.minLimit, this.maxLimit)));
+        this.nanoClock = nanoClock;
+        this.windowStart = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    // Takes a slot if fewer than limit requests are in flight.
+    boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        peakInFlight.accumulateAndGet(current + 1, Math::max);
+        return true;
+    }
+
+    // Returns a slot and adds the request's outcome to the current window.
+    void release(long latencyNanos, boolean failed) {
+        inFlight.decrementAndGet();
+        samples.incrementAndGet();
+        if (failed) {
+            failures.incrementAndGet();
+        } else if (latencyNanos > latencyTargetNanos) {
+            slowSamples.incrementAndGet();
+        }
+        long now = nanoClock.getAsLong();
+        long start = windowStart.get();
+        // Exactly one releasing thread closes an elapsed window
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            closeWindow();
+        }
+    }
+
+    private void closeWindow() {
+        int total = samples.getAndSet(0);
+        int slow = slowSamples.getAndSet(0);
+        int failed = failures.getAndSet(0);
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (failed > 0 || (total >= minSamples && slow > total * slowFraction)) {
+            update(limit -> Math.max(minLimit, limit * backoffRatio));
+        } else if (peak * 2 >= limit()) {
+            // Only grow while the limit is actually used, so a quiet class does not drift up to the maximum
+            update(limit -> Math.min(maxLimit, limit + 1));
+        }
+    }
+
+    double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    private void update(DoubleUnaryOperator change) {
+        limitBits.getAndUpdate(bits -> Double.doubleToRawLongBits(change.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,44 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+// Holds a ConcurrencyLimiter slot of one endpoint class for the duration of the MVC handlers it is
+// registered for (see WebConfig). The slot is released after the response completes, including for
+// handlers that finish asynchronously, whose async dispatch reuses the slot taken on the first one.
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final ConcurrencyLimiter.EndpointClass endpointClass;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimiter concurrencyLimiter, ConcurrencyLimiter.EndpointClass endpointClass) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.endpointClass = endpointClass;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC && request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(endpointClass);
+        if (permit == null) {
+            ConcurrencyLimiter.reject(response);
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof ConcurrencyLimiter.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.release(ex != null || response.getStatus() >= 500);
+        }
+    }
+}
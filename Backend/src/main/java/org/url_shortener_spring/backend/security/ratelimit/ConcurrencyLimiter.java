@@ -0,0 +1,113 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Adaptive concurrency limits in front of the database-bound request handling, one AimdLimit per
+// endpoint class. When the database slows down, a class's tail latency rises above its target (or its
+// requests start failing) and its limit shrinks, so excess requests are refused at once with 503 instead of piling up on Tomcat threads and
+// the connection pool. Classes are limited separately, so slow analytics cannot take redirects' slots.
+@Component
+public class ConcurrencyLimiter {
+
+    // Endpoint classes with separate limits
+    public enum EndpointClass {
+        // Public short-code redirects
+        REDIRECT,
+        // Creating, listing and deleting links
+        LINKS,
+        // Click and visitor analytics
+        ANALYTICS,
+        // Registration, login and the current user
+        ACCOUNTS
+    }
+
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+
+    public ConcurrencyLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.ConcurrencyLimit config = appConfig.getConcurrencyLimit();
+        if (!config.isEnabled()) {
+            return;
+        }
+        addLimit(EndpointClass.REDIRECT, config.getRedirectMaxLimit(), config.getRedirectLatency(), config, meterRegistry);
+        addLimit(EndpointClass.LINKS, config.getLinksMaxLimit(), config.getLinksLatency(), config, meterRegistry);
+        addLimit(EndpointClass.ANALYTICS, config.getAnalyticsMaxLimit(), config.getAnalyticsLatency(), config, meterRegistry);
+        addLimit(EndpointClass.ACCOUNTS, config.getAccountsMaxLimit(), config.getAccountsLatency(), config, meterRegistry);
+    }
+
+    private void addLimit(EndpointClass endpointClass, int maxLimit, Duration latencyTarget,
+                          AppConfig.ConcurrencyLimit config, MeterRegistry meterRegistry) {
+        AimdLimit aimd = new AimdLimit(config.getInitialLimit(), config.getMinLimit(), maxLimit,
+                config.getBackoffRatio(), latencyTarget.toNanos(), config.getWindow().toNanos(),
+                config.getMinWindowSamples(), config.getSlowFraction());
+        String tag = endpointClass.name().toLowerCase();
+        Counter rejected = Counter.builder("concurrency.rejected")
+                .description("Requests refused with 503 because their endpoint class was at its concurrency limit")
+                .tag("class", tag)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.limit", aimd, AimdLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("class", tag)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", aimd, AimdLimit::inFlight)
+                .description("Requests holding a concurrency slot")
+                .tag("class", tag)
+                .register(meterRegistry);
+        limits.put(endpointClass, new Limit(aimd, rejected));
+    }
+
+    // A slot for one request of the class, or null if the class is at its limit.
+    public Permit tryAcquire(EndpointClass endpointClass) {
+        Limit limit = limits.get(endpointClass);
+        if (limit == null) {
+            return Permit.UNLIMITED;
+        }
+        if (!limit.aimd.tryAcquire()) {
+            limit.rejected.increment();
+            return null;
+        }
+        return new Permit(limit.aimd, System.nanoTime());
+    }
+
+    // Writes an empty 503 for a request refused at the limit.
+    public static void reject(HttpServletResponse response) {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentLength(0);
+    }
+
+    // A held slot; release it exactly once when the request finishes
+    public static final class Permit {
+
+        // Handed out for classes with limiting disabled
+        private static final Permit UNLIMITED = new Permit(null, 0);
+
+        private final AimdLimit aimd;
+        private final long startNanos;
+
+        private Permit(AimdLimit aimd, long startNanos) {
+            this.aimd = aimd;
+            this.startNanos = startNanos;
+        }
+
+        // Returns the slot; failed requests and their latency both feed the limit.
+        public void release(boolean failed) {
+            if (aimd != null) {
+                aimd.release(System.nanoTime() - startNanos, failed);
+            }
+        }
+    }
+
+    private record Limit(AimdLimit aimd, Counter rejected) {
+    }
+}
@@ -0,0 +1,46 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.url_shortener_spring.backend.service.UserDetailsImpl;
+
+// Applies one RateLimiter route class to the MVC handlers it is registered for (see WebConfig).
+// Runs after Spring Security, so signed-in callers are limited per user and anonymous ones per IP.
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final RateLimiter.Route route;
+
+    public RateLimitInterceptor(RateLimiter rateLimiter, RateLimiter.Route route) {
+        this.rateLimiter = rateLimiter;
+        this.route = route;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // The request already paid on its first dispatch; an async dispatch (e.g. the end of a streamed
+        // bulk response) must not take a second token or reject a response that is already committed
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        long wait = rateLimiter.acquire(route, clientOf(request));
+        if (wait == 0) {
+            return true;
+        }
+        RateLimiter.reject(response, wait);
+        return false;
+    }
+
+    // The user id for an authenticated caller, otherwise the client address; the key types never collide.
+    private static Object clientOf(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl principal) {
+            return principal.getId();
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,102 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// In-process admission control for the routes that reach the database on behalf of anonymous or
+// automated callers. Each route class has its own rate and burst, and its own per-client TokenBucket
+// map in a bounded Caffeine cache: clients idle for idle-timeout are dropped (a dropped bucket is simply
+// a full one), and beyond max-clients the least recently seen go first. An admitted request costs a map
+// hit, System.nanoTime and one CAS.
+@Component
+public class RateLimiter {
+
+    // Route classes with separate limits
+    public enum Route {
+        // Public short-code redirects, keyed by client IP
+        REDIRECT,
+        // Link creation, keyed by user id (client IP if anonymous)
+        SHORTEN
+    }
+
+    private final Map<Route, Limit> limits = new EnumMap<>(Route.class);
+
+    public RateLimiter(AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.RateLimit config = appConfig.getRateLimit();
+        if (!config.isEnabled()) {
+            return;
+        }
+        addLimit(Route.REDIRECT, config.getRedirectPerSecond(), config.getRedirectBurst(), config, meterRegistry);
+        addLimit(Route.SHORTEN, config.getShortenPerSecond(), config.getShortenBurst(), config, meterRegistry);
+    }
+
+    private void addLimit(Route route, double perSecond, int burst, AppConfig.RateLimit config, MeterRegistry meterRegistry) {
+        // A non-positive rate leaves the route unlimited
+        if (perSecond <= 0) {
+            return;
+        }
+        Limit limit = new Limit(perSecond, burst, config);
+        limits.put(route, limit);
+
+        String tag = route.name().toLowerCase();
+        limit.rejected = Counter.builder("ratelimit.rejected")
+                .description("Requests rejected with 429 by the per-client rate limiter")
+                .tag("route", tag)
+                .register(meterRegistry);
+        Gauge.builder("ratelimit.clients", limit.buckets, Cache::estimatedSize)
+                .description("Clients with a token bucket")
+                .tag("route", tag)
+                .register(meterRegistry);
+    }
+
+    // Admits one request of the client on the route; returns 0 if admitted, otherwise the nanoseconds to wait.
+    public long acquire(Route route, Object client) {
+        Limit limit = limits.get(route);
+        if (limit == null || client == null) {
+            return 0;
+        }
+        long wait = limit.buckets.get(client, key -> new TokenBucket())
+                .tryAcquire(System.nanoTime(), limit.intervalNanos, limit.toleranceNanos);
+        if (wait != 0) {
+            limit.rejected.increment();
+        }
+        return wait;
+    }
+
+    // Writes an empty 429 telling the client, in whole seconds, when to try again.
+    public static void reject(HttpServletResponse response, long waitNanos) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000)));
+        response.setContentLength(0);
+    }
+
+    // One route class: its rate as nanoseconds per token, its burst as tolerance, and its buckets
+    private static final class Limit {
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Cache<Object, TokenBucket> buckets;
+        private Counter rejected;
+
+        private Limit(double perSecond, int burst, AppConfig.RateLimit config) {
+            this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+            // A full bucket admits burst back-to-back requests before the rate applies
+            this.toleranceNanos = intervalNanos * Math.max(1, burst);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(config.getMaxClients())
+                    .expireAfterAccess(config.getIdleTimeout())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// One client's token bucket, kept as a single nanoTime value and updated with one CAS (no lock).
+// This is the GCRA form of a token bucket: instead of a token count and a last-refill time it stores the
+// theoretical arrival time, the instant at which the bucket would be full again. Admitting a request
+// pushes that instant one interval further; a request is rejected when doing so would put it more than
+// burst intervals ahead of now. Extends AtomicLong so a bucket is one object rather than two.
+final class TokenBucket extends AtomicLong {
+
+    TokenBucket() {
+        super(Long.MIN_VALUE);
+    }
+
+    // Takes one token at now; returns 0 if admitted, otherwise the nanoseconds until one is available.
+    long tryAcquire(long now, long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long arrival = get();
+            long next = Math.max(arrival, now) + intervalNanos;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.url_shortener_spring.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.dtos.BulkShortenItem;
+import org.url_shortener_spring.backend.dtos.BulkShortenResultDTO;
+import org.url_shortener_spring.backend.dtos.UrlMappingDTO;
+import org.url_shortener_spring.backend.models.User;
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+import org.url_shortener_spring.backend.service.dedup.UrlCanonicalizer;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Creates many short URLs from one request.
+// Items are read one at a time from a JSON array or NDJSON body and processed in chunks: codes for a
+// chunk are generated together, the rows are inserted with one JDBC batch in one transaction, and the
+// results are written back as NDJSON before the next chunk is read, so memory stays bounded by the
+// chunk size however large the request is. If a batch fails, its rows are retried one by one so the
+// failure is reported against the items that caused it.
+@Slf4j
+@Service
+public class BulkShortenService {
+
+    private static final String INSERT_MAPPING =
+            "INSERT INTO url_mapping (original_url, short_url, short_code, url_digest, click_count, created_date, user_id) "
+                    + "VALUES (?, ?, ?, ?, 0, ?, ?)";
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final UrlMappingService urlMappingService;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public BulkShortenService(UrlMappingService urlMappingService, ShortCodeGenerator shortCodeGenerator,
+                              JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, AppConfig appConfig) {
+        this.urlMappingService = urlMappingService;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, appConfig.getBulkShorten().getChunkSize());
+    }
+
+    // Reads items from in and writes one result line per item to out, in request order.
+    public void shorten(InputStream in, OutputStream out, User user) throws IOException {
+        List<PendingLink> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<BulkShortenItem> items = objectMapper.readerFor(BulkShortenItem.class).readValues(in)) {
+            while (items.hasNextValue()) {
+                BulkShortenItem item = items.nextValue();
+                chunk.add(new PendingLink(index++, item == null ? null : item.getOriginalUrl()));
+                if (chunk.size() == chunkSize) {
+                    write(out, process(chunk, user));
+                    chunk.clear();
+                }
+            }
+        } catch (JacksonException e) {
+            // The body cannot be read past a syntax error; report it against the next index and stop
+            write(out, process(chunk, user));
+            chunk.clear();
+            write(out, List.of(BulkShortenResultDTO.failure(index, "Malformed item: " + e.getOriginalMessage())));
+            return;
+        }
+        write(out, process(chunk, user));
+    }
+
+    private List<BulkShortenResultDTO> process(List<PendingLink> chunk, User user) {
+        List<BulkShortenResultDTO> results = new ArrayList<>(chunk.size());
+        List<PendingLink> valid = new ArrayList<>(chunk.size());
+        for (PendingLink link : chunk) {
+            if (link.originalUrl == null || link.originalUrl.isBlank()) {
+                results.add(BulkShortenResultDTO.failure(link.index, "originalUrl is required"));
+            } else {
+                valid.add(link);
+            }
+        }
+        if (valid.isEmpty()) {
+            return results;
+        }
+
+        long[] codes = shortCodeGenerator.next(valid.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < valid.size(); i++) {
+            valid.get(i).shortCode = urlMappingService.ensureUnused(codes[i]);
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(valid, now, user));
+            for (PendingLink link : valid) {
+                results.add(created(link, now, user));
+            }
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Bulk insert of {} links failed, retrying individually", valid.size(), e);
+            for (PendingLink link : valid) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(link), now, user));
+                    results.add(created(link, now, user));
+                } catch (DataAccessException | TransactionException rowFailure) {
+                    results.add(BulkShortenResultDTO.failure(link.index, "Could not store link"));
+                }
+            }
+        }
+        results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return results;
+    }
+
+    // Inserts the links with one JDBC batch and records their generated ids.
+    private void insert(List<PendingLink> links, LocalDateTime now, User user) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_MAPPING, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        PendingLink link = links.get(i);
+                        ps.setString(1, link.originalUrl);
+                        ps.setString(2, ShortCodeCodec.unpack(link.shortCode));
+                        ps.setLong(3, link.shortCode);
+                        ps.setLong(4, UrlCanonicalizer.digest(UrlCanonicalizer.canonicalize(link.originalUrl)));
+                        ps.setTimestamp(5, Timestamp.valueOf(now));
+                        ps.setLong(6, user.getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return links.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < links.size(); i++) {
+            links.get(i).id = ((Number) keys.get(i).get("id")).longValue();
+        }
+    }
+
+    private BulkShortenResultDTO created(PendingLink link, LocalDateTime now, User user) {
+        urlMappingService.registerCreated(new ResolvedUrl(link.id, link.shortCode, link.originalUrl));
+
+        UrlMappingDTO urlMappingDTO = new UrlMappingDTO();
+        urlMappingDTO.setId(link.id);
+        urlMappingDTO.setOriginalUrl(link.originalUrl);
+        urlMappingDTO.setShortUrl(ShortCodeCodec.unpack(link.shortCode));
+        urlMappingDTO.setClickCount(0);
+        urlMappingDTO.setCreatedDate(now);
+        urlMappingDTO.setUsername(user.getUsername());
+        return BulkShortenResultDTO.success(link.index, urlMappingDTO);
+    }
+
+    private void write(OutputStream out, List<BulkShortenResultDTO> results) throws IOException {
+        if (results.isEmpty()) {
+            return;
+        }
+        for (BulkShortenResultDTO result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write(NEWLINE);
+        }
+        out.flush();
+    }
+
+    // An item of the current chunk; id and shortCode are filled in as it is processed
+    private static final class PendingLink {
+
+        private final int index;
+        private final String originalUrl;
+        private long shortCode;
+        private long id;
+
+        private PendingLink(int index, String originalUrl) {
+            this.index = index;
+            this.originalUrl = originalUrl;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.url_shortener_spring.backend.service;
+
+// Keyed bijection of [0, domain) onto itself.
+// A balanced Feistel network permutes [0, 2^(2 * halfBits)), the smallest even power of two at or above
+// the domain, and cycle-walks values that land outside the domain until they fall back into it. Every
+// Feistel network is a bijection whatever its round function, and cycle-walking keeps it one on the
+// smaller domain, so tests can check it exhaustively on a small domain.
+final class FeistelPermutation {
+
+    private static final int ROUNDS = 6;
+
+    private final long[] roundKeys = new long[ROUNDS];
+    private final int halfBits;
+    private final long halfMask;
+    private final long domain;
+
+    FeistelPermutation(long key, int halfBits, long domain) {
+        if (halfBits < 1 || halfBits > 31 || domain < 1 || domain > 1L << (2 * halfBits)) {
+            throw new IllegalArgumentException("Domain " + domain + " does not fit " + (2 * halfBits) + " bits");
+        }
+        this.halfBits = halfBits;
+        this.halfMask = (1L << halfBits) - 1;
+        this.domain = domain;
+        for (int i = 0; i < ROUNDS; i++) {
+            roundKeys[i] = mix(key + (i + 1) * 0x9e3779b97f4a7c15L);
+        }
+    }
+
+    // The image of value, which must be in [0, domain).
+    long permute(long value) {
+        long result = value;
+        do {
+            result = encrypt(result);
+        } while (result >= domain);
+        return result;
+    }
+
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long roundKey : roundKeys) {
+            long mixed = left ^ (mix(right ^ roundKey) & halfMask);
+            left = right;
+            right = mixed;
+        }
+        return (left << halfBits) | right;
+    }
+
+    // MurmurHash3 64-bit finalizer.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
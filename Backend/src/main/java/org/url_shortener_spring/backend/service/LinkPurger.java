@@ -0,0 +1,182 @@
+package org.url_shortener_spring.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.dtos.LinkPurgeDTO;
+import org.url_shortener_spring.backend.models.UrlMapping;
+import org.url_shortener_spring.backend.service.clicks.ClickRollupService;
+import org.url_shortener_spring.backend.service.visitors.VisitorSketchService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Removes deleted links and everything recorded for them.
+// Deleting a link only sets url_mapping.deleted_at, which hides it from redirects, listings and analytics
+// at once. This job then deletes its click events in bounded set-based batches, pausing between batches
+// so the click writer and analytics queries keep the database, and finally removes the rollup rows,
+// visitor sketches and the mapping row in one short transaction. The tombstone is the only state it
+// needs, so after a restart it simply continues with the links that are still there. A tombstone is kept
+// for tombstone-retention first, which lets every node's MappingSnapshotStore read the delete back.
+@Slf4j
+@Component
+public class LinkPurger {
+
+    private static final String SELECT_TOMBSTONES =
+            "SELECT id FROM url_mapping WHERE deleted_at IS NOT NULL AND deleted_at < ? ORDER BY deleted_at, id LIMIT ?";
+    private static final String SELECT_PURGES =
+            "SELECT id, deleted_at FROM url_mapping WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id LIMIT ?";
+    private static final String COUNT_TOMBSTONES = "SELECT count(*) FROM url_mapping WHERE deleted_at IS NOT NULL";
+    // Keyed on (id, click_date) rather than ctid, which is not unique across partitions
+    private static final String DELETE_CLICK_BATCH =
+            "DELETE FROM click_events WHERE (id, click_date) IN " +
+            "(SELECT id, click_date FROM click_events WHERE url_mapping_id = ? LIMIT ?)";
+    private static final String DELETE_MAPPING = "DELETE FROM url_mapping WHERE id = ? AND deleted_at IS NOT NULL";
+    private static final String INDEX_NAME = "idx_click_events_mapping_date";
+    private static final String IS_PARTITIONED =
+            "SELECT c.relkind = 'p' FROM pg_class c WHERE c.oid = to_regclass('click_events')";
+    // Whether the index exists but was left invalid by an interrupted concurrent build
+    private static final String INDEX_INVALID =
+            "SELECT NOT i.indisvalid FROM pg_index i WHERE i.indexrelid = to_regclass('" + INDEX_NAME + "')";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClickRollupService clickRollupService;
+    private final VisitorSketchService visitorSketchService;
+    private final Cache entityCache;
+    private final AppConfig.LinkPurge config;
+
+    // Tombstones younger than this are left for other nodes' snapshot stores to read back
+    private final Duration tombstoneRetention;
+
+    // Click rows removed so far per link still being purged, as seen by this node
+    private final Map<Long, AtomicLong> progress = new ConcurrentHashMap<>();
+    private final Counter purgedClicks;
+    private final Counter purgedLinks;
+    private volatile long pendingLinks;
+
+    public LinkPurger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                      ClickRollupService clickRollupService, VisitorSketchService visitorSketchService,
+                      EntityManagerFactory entityManagerFactory, AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clickRollupService = clickRollupService;
+        this.visitorSketchService = visitorSketchService;
+        this.entityCache = entityManagerFactory.getCache();
+        this.config = appConfig.getLinkPurge();
+        Duration snapshotMaxAge = appConfig.getSnapshot().getMaxAge();
+        this.tombstoneRetention = config.getTombstoneRetention().compareTo(snapshotMaxAge) >= 0
+                ? config.getTombstoneRetention() : snapshotMaxAge;
+
+        this.purgedClicks = Counter.builder("link.purge.clicks")
+                .description("Click rows deleted for purged links")
+                .register(meterRegistry);
+        this.purgedLinks = Counter.builder("link.purge.links")
+                .description("Deleted links fully purged")
+                .register(meterRegistry);
+        Gauge.builder("link.purge.pending", this, purger -> purger.pendingLinks)
+                .description("Deleted links still waiting to be purged")
+                .register(meterRegistry);
+    }
+
+    // Batches select by url_mapping_id, which needs an index when click_events is not partitioned (the
+    // partitioned table declares it on the parent). It is built CONCURRENTLY, outside any transaction, so
+    // the click writer's inserts are not blocked for the length of the build.
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        try {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class))) {
+                return;
+            }
+            List<Boolean> invalid = jdbcTemplate.queryForList(INDEX_INVALID, Boolean.class);
+            if (!invalid.isEmpty() && invalid.get(0)) {
+                jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + INDEX_NAME);
+            }
+            jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + INDEX_NAME +
+                    " ON click_events (url_mapping_id, click_date)");
+        } catch (RuntimeException e) {
+            log.warn("Could not create the click_events (url_mapping_id, click_date) index", e);
+        }
+    }
+
+    // Purges the oldest tombstoned links.
+    @Scheduled(initialDelayString = "${app.link-purge.interval-ms:10000}",
+            fixedDelayString = "${app.link-purge.interval-ms:10000}")
+    public void purge() {
+        try {
+            Long pending = jdbcTemplate.queryForObject(COUNT_TOMBSTONES, Long.class);
+            pendingLinks = pending == null ? 0 : pending;
+            if (pendingLinks == 0) {
+                progress.clear();
+                return;
+            }
+            Timestamp deletedBefore = Timestamp.valueOf(LocalDateTime.now().minus(tombstoneRetention));
+            for (Long urlMappingId : jdbcTemplate.queryForList(SELECT_TOMBSTONES, Long.class, deletedBefore,
+                    config.getLinksPerRun())) {
+                try {
+                    purgeLink(urlMappingId);
+                } catch (RuntimeException e) {
+                    log.warn("Purge of deleted link {} failed, resuming on the next run", urlMappingId, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Could not list deleted links to purge", e);
+        }
+    }
+
+    private void purgeLink(long urlMappingId) throws InterruptedException {
+        AtomicLong removed = progress.computeIfAbsent(urlMappingId, id -> new AtomicLong());
+        int batchSize = Math.max(1, config.getBatchSize());
+        Duration pause = config.getBatchPause();
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(DELETE_CLICK_BATCH, urlMappingId, batchSize);
+            removed.addAndGet(deleted);
+            purgedClicks.increment(deleted);
+            if (deleted == batchSize && !pause.isZero()) {
+                Thread.sleep(pause);
+            }
+        } while (deleted == batchSize);
+
+        // The click writer skips tombstoned links, but a batch already in flight can still land a row;
+        // the foreign key then fails this transaction and the link is picked up again on the next run
+        transactionTemplate.executeWithoutResult(status -> {
+            clickRollupService.deleteFor(urlMappingId);
+            visitorSketchService.deleteFor(urlMappingId);
+            jdbcTemplate.update(DELETE_MAPPING, urlMappingId);
+        });
+        // The row went away behind Hibernate's back; drop its cached tombstone
+        entityCache.evict(UrlMapping.class, urlMappingId);
+        progress.remove(urlMappingId);
+        purgedLinks.increment();
+        pendingLinks = Math.max(0, pendingLinks - 1);
+        log.info("Purged deleted link {} ({} click rows)", urlMappingId, removed.get());
+    }
+
+    // Links still waiting to be purged, oldest first, with the click rows this node has removed so far.
+    public List<LinkPurgeDTO> pending(int limit) {
+        return jdbcTemplate.query(SELECT_PURGES, (rs, rowNum) -> {
+            long id = rs.getLong(1);
+            AtomicLong removed = progress.get(id);
+            return new LinkPurgeDTO(id, rs.getTimestamp(2).toLocalDateTime(), removed == null ? 0 : removed.get());
+        }, limit);
+    }
+}
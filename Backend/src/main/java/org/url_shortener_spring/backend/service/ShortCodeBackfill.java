@@ -0,0 +1,71 @@
+package org.url_shortener_spring.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fills url_mapping.short_code for rows created before the packed column existed.
+// Runs once in the background after startup; until it finishes, lookups by packed code
+// fall back to the short_url column.
+@Slf4j
+@Component
+public class ShortCodeBackfill {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String SELECT_UNPACKED =
+            "SELECT id, short_url FROM url_mapping WHERE short_code IS NULL AND id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+    private static final String UPDATE_SHORT_CODE = "UPDATE url_mapping SET short_code = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile boolean complete;
+
+    public ShortCodeBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Whether every row has its packed code.
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // Starts the backfill once the application is up.
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread.ofVirtual().name("short-code-backfill").start(this::run);
+    }
+
+    private void run() {
+        long lastId = 0;
+        long updated = 0;
+        try {
+            while (true) {
+                List<long[]> batch = new ArrayList<>(BATCH_SIZE);
+                jdbcTemplate.query(SELECT_UNPACKED, rs -> {
+                    long packed = ShortCodeCodec.pack(rs.getString(2));
+                    batch.add(new long[]{rs.getLong(1), packed});
+                }, lastId);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1)[0];
+                // Codes the codec cannot represent keep a null short_code and stay on the string path
+                List<long[]> packable = batch.stream().filter(row -> ShortCodeCodec.isValid(row[1])).toList();
+                jdbcTemplate.batchUpdate(UPDATE_SHORT_CODE, packable, packable.size(), (ps, row) -> {
+                    ps.setLong(1, row[1]);
+                    ps.setLong(2, row[0]);
+                });
+                updated += packable.size();
+            }
+            complete = true;
+            log.info("Short code backfill finished, {} rows updated", updated);
+        } catch (RuntimeException e) {
+            log.error("Short code backfill failed after {} rows; lookups keep using short_url", updated, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.url_shortener_spring.backend.service;
+
+// Packs Base62 short codes into primitive longs and back without intermediate objects.
+// Layout: bits 59-62 hold the code length (1..9), bits 0-58 the Base62 value, so codes that differ only
+// in leading zeros stay distinct, every packed code is a positive long, and codes of equal length sort
+// numerically in the same order as their strings ("0-9A-Za-z" is ascending in ASCII).
+public final class ShortCodeCodec {
+
+    // Returned for anything that is not a Base62 code of 1..9 characters
+    public static final long INVALID = -1L;
+
+    public static final int MAX_LENGTH = 9;
+
+    private static final String Base62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int LENGTH_SHIFT = 59;
+    private static final long VALUE_MASK = (1L << LENGTH_SHIFT) - 1;
+
+    private ShortCodeCodec() {
+    }
+
+    // Packs a whole code.
+    public static long pack(CharSequence code) {
+        return pack(code, 0, code.length());
+    }
+
+    // Packs code characters [start, end) of a larger sequence, e.g. straight out of a request path.
+    public static long pack(CharSequence source, int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > MAX_LENGTH) {
+            return INVALID;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = digit(source.charAt(i));
+            if (digit < 0) {
+                return INVALID;
+            }
+            value = value * 62 + digit;
+        }
+        return ((long) length << LENGTH_SHIFT) | value;
+    }
+
+    // Packs a fixed-length code from its numeric value (0 <= value < 62^length).
+    public static long fromValue(long value, int length) {
+        return ((long) length << LENGTH_SHIFT) | value;
+    }
+
+    // Restores the code string; the only allocation is the resulting String.
+    public static String unpack(long packed) {
+        int length = length(packed);
+        long value = packed & VALUE_MASK;
+        char[] chars = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            chars[i] = Base62.charAt((int) (value % 62));
+            value /= 62;
+        }
+        return new String(chars);
+    }
+
+    // Number of characters in a packed code.
+    public static int length(long packed) {
+        return (int) (packed >>> LENGTH_SHIFT);
+    }
+
+    public static boolean isValid(long packed) {
+        return packed != INVALID;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
+        }
+        return -1;
+    }
+}
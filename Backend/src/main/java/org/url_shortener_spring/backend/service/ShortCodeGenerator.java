@@ -0,0 +1,141 @@
+package org.url_shortener_spring.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Issues short codes that are unique by construction.
+// Numeric ids are leased from the short_code_seq database sequence in blocks (hi/lo), so a node talks to
+// the database once per block instead of once per code, and nodes never hand out the same id. Each id is
+// then passed through a keyed Feistel permutation of the 62^7 code space, which is a bijection: distinct
+// ids always give distinct codes, while consecutive ids still come out looking random.
+@Slf4j
+@Component
+public class ShortCodeGenerator {
+
+    public static final int CODE_LENGTH = 7;
+
+    // 62^7, the number of distinct 7-character codes
+    static final long CODE_SPACE = 3_521_614_606_208L;
+
+    private static final String SEQUENCE = "short_code_seq";
+    private static final String SELECT_INCREMENT = "SELECT increment_by FROM pg_sequences WHERE sequencename = ?";
+    private static final String NEXT_BLOCK = "SELECT nextval('" + SEQUENCE + "')";
+
+    // The Feistel network permutes [0, 2^42) (the smallest even power of two above 62^7) and
+    // cycle-walks back into [0, 62^7), which takes 1.25 rounds of encryption on average
+    private static final int HALF_BITS = 21;
+
+    // Formerly committed as the default key; public, so it gives no protection
+    private static final long PUBLISHED_SAMPLE_KEY = 7046029254386353131L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FeistelPermutation permutation;
+    private final int configuredBlockSize;
+
+    // Guards the current block; a ReentrantLock so leasing a new block never pins a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Ids in [next, limit) are leased to this node and not yet used
+    private long next;
+    private long limit;
+    private long blockSize;
+
+    public ShortCodeGenerator(JdbcTemplate jdbcTemplate, AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        AppConfig.ShortCode config = appConfig.getShortCode();
+        this.configuredBlockSize = config.getBlockSize();
+        long key = config.getPermutationKey();
+        if (isWeakKey(key)) {
+            throw new IllegalStateException("app.short-code.permutation-key must be a private random 64-bit value; "
+                    + "with a known key, codes can be inverted to ids and every link enumerated");
+        }
+        this.permutation = new FeistelPermutation(key, HALF_BITS, CODE_SPACE);
+    }
+
+    // Unset, small, or the sample value once shipped as a default; a random 64-bit key is none of these
+    private static boolean isWeakKey(long key) {
+        return Math.abs(key) < (1L << 32) || key == PUBLISHED_SAMPLE_KEY;
+    }
+
+    // Returns the next packed code issued to this node.
+    public long next() {
+        long id;
+        lock.lock();
+        try {
+            if (next >= limit) {
+                leaseBlock();
+            }
+            id = next++;
+        } finally {
+            lock.unlock();
+        }
+        if (id >= CODE_SPACE) {
+            throw new IllegalStateException("Short code space exhausted");
+        }
+        return ShortCodeCodec.fromValue(permute(id), CODE_LENGTH);
+    }
+
+    // Returns the next count packed codes, taking the lock once for all of them.
+    public long[] next(int count) {
+        long[] ids = new long[count];
+        lock.lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                if (next >= limit) {
+                    leaseBlock();
+                }
+                ids[i] = next++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        long[] codes = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (ids[i] >= CODE_SPACE) {
+                throw new IllegalStateException("Short code space exhausted");
+            }
+            codes[i] = ShortCodeCodec.fromValue(permute(ids[i]), CODE_LENGTH);
+        }
+        return codes;
+    }
+
+    // Reserves the next block of ids from the shared sequence.
+    private void leaseBlock() {
+        if (blockSize == 0) {
+            blockSize = ensureSequence();
+        }
+        Long start = jdbcTemplate.queryForObject(NEXT_BLOCK, Long.class);
+        if (start == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " returned no value");
+        }
+        next = start;
+        limit = start + blockSize;
+        log.debug("Leased short code ids [{}, {})", next, limit);
+    }
+
+    // Creates the sequence on first use and returns its increment, which is the block size every node
+    // must use; it is read back rather than taken from configuration so that nodes configured with a
+    // different block size can never lease overlapping ranges.
+    private long ensureSequence() {
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE
+                + " START WITH 1 INCREMENT BY " + configuredBlockSize);
+        Long increment = jdbcTemplate.queryForObject(SELECT_INCREMENT, Long.class, SEQUENCE);
+        if (increment == null || increment < 1) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " has no usable increment");
+        }
+        if (increment != configuredBlockSize) {
+            log.warn("Sequence {} increments by {}, ignoring configured block size {}",
+                    SEQUENCE, increment, configuredBlockSize);
+        }
+        return increment;
+    }
+
+    // Keyed bijection of [0, 62^7) onto itself.
+    long permute(long id) {
+        return permutation.permute(id);
+    }
+}
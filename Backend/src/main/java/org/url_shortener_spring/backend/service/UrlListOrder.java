@@ -0,0 +1,55 @@
+package org.url_shortener_spring.backend.service;
+
+import org.url_shortener_spring.backend.repository.UrlMappingSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// Order of a user's link listing, and the keyset cursor that resumes it.
+// A cursor carries the sort key and id of the last row served, so the next page starts right after it
+// with an index seek instead of an OFFSET scan. Ordering by clicks follows a column that keeps changing,
+// so a link whose count moves between requests can be skipped or served twice.
+public enum UrlListOrder {
+    RECENT, CLICKS;
+
+    // Opaque cursor resuming the listing after row.
+    public String cursorAfter(UrlMappingSummary row) {
+        long key = this == RECENT ? toMicros(row.createdDate()) : row.clickCount();
+        byte[] raw = (key + ":" + row.id()).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    // Decodes a cursor made by cursorAfter; throws IllegalArgumentException if it is malformed.
+    public Cursor parse(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+        int separator = raw.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        long key = Long.parseLong(raw.substring(0, separator));
+        long id = Long.parseLong(raw.substring(separator + 1));
+        if (this == CLICKS && (key < Integer.MIN_VALUE || key > Integer.MAX_VALUE)) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new Cursor(key, id);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    // Sort key and id of the last row of the previous page.
+    public record Cursor(long key, long id) {
+
+        public LocalDateTime createdDate() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000),
+                    (int) Math.floorMod(key, 1_000_000) * 1_000, ZoneOffset.UTC);
+        }
+
+        public int clickCount() {
+            return (int) key;
+        }
+    }
+}
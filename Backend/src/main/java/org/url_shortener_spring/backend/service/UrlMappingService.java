@@ -2,20 +2,42 @@ package org.url_shortener_spring.backend.service;
 
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.url_shortener_spring.backend.dtos.ClickBucketDTO;
 import org.url_shortener_spring.backend.dtos.ClickEventDTO;
+import org.url_shortener_spring.backend.dtos.DailyVisitorsDTO;
+import org.url_shortener_spring.backend.dtos.TrendingDTO;
+import org.url_shortener_spring.backend.dtos.TrendingLinkDTO;
 import org.url_shortener_spring.backend.dtos.UrlMappingDTO;
-import org.url_shortener_spring.backend.models.ClickEvents;
+import org.url_shortener_spring.backend.dtos.VisitorAnalyticsDTO;
+import org.url_shortener_spring.backend.exception.ResourceNotFoundException;
 import org.url_shortener_spring.backend.models.User;
 import org.url_shortener_spring.backend.models.UrlMapping;
-import org.url_shortener_spring.backend.repository.ClickEventRepository;
 import org.url_shortener_spring.backend.repository.UrlMappingRepository;
+import org.url_shortener_spring.backend.repository.UrlMappingSummary;
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+import org.url_shortener_spring.backend.service.cache.ShortCodeBloomFilter;
+import org.url_shortener_spring.backend.service.cache.UrlResolutionCache;
+import org.url_shortener_spring.backend.service.clicks.ClickCounterService;
+import org.url_shortener_spring.backend.service.clicks.ClickGranularity;
+import org.url_shortener_spring.backend.service.clicks.ClickIngestionService;
+import org.url_shortener_spring.backend.service.clicks.ClickRollupService;
+import org.url_shortener_spring.backend.service.dedup.UrlCanonicalizer;
+import org.url_shortener_spring.backend.service.dedup.UrlDedupIndex;
+import org.url_shortener_spring.backend.service.live.LiveClickFeed;
+import org.url_shortener_spring.backend.service.snapshot.MappingSnapshotStore;
+import org.url_shortener_spring.backend.service.trending.TrendingLinks;
+import org.url_shortener_spring.backend.service.visitors.VisitorSketchService;
 
-import java.security.SecureRandom;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 // Service for managing URL mappings and click events.
@@ -23,66 +45,157 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 public class UrlMappingService {
     private UrlMappingRepository urlMappingRepository;
-    private ClickEventRepository clickEventRepository;
-    private static final String Base62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
-    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
-    private static final int Short_Url_length = 7;
+    private UrlResolutionCache urlResolutionCache;
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    private ClickIngestionService clickIngestionService;
+    private ClickCounterService clickCounterService;
+    private ClickRollupService clickRollupService;
+    private MappingSnapshotStore mappingSnapshotStore;
+    private ShortCodeGenerator shortCodeGenerator;
+    private UrlDedupIndex urlDedupIndex;
+    private LiveClickFeed liveClickFeed;
+    private VisitorSketchService visitorSketchService;
+    private TrendingLinks trendingLinks;
 
     // Creates a short URL for the given original URL and user.
     public UrlMappingDTO createShortUrl(String originalUrl, User user) {
-        String shortUrl = generateShortUrl();
+        return createShortUrl(originalUrl, user, null);
+    }
+
+    // Creates a short URL, or with dedup (null = app.dedup.enabled) returns the user's existing
+    // link for the same canonical URL without generating a code or writing.
+    public UrlMappingDTO createShortUrl(String originalUrl, User user, Boolean dedup) {
+        String canonicalUrl = UrlCanonicalizer.canonicalize(originalUrl);
+        long digest = UrlCanonicalizer.digest(canonicalUrl);
+        if (dedup == null ? urlDedupIndex.isEnabledByDefault() : dedup) {
+            UrlMappingDTO existing = findExisting(user, canonicalUrl, digest);
+            if (existing != null) {
+                return existing;
+            }
+        }
+
+        long shortCode = generateShortCode();
         UrlMapping urlMapping = new UrlMapping();
         urlMapping.setOriginalUrl(originalUrl);
-        urlMapping.setShortUrl(shortUrl);
+        urlMapping.setShortUrl(ShortCodeCodec.unpack(shortCode));
+        urlMapping.setShortCode(shortCode);
+        urlMapping.setUrlDigest(digest);
         urlMapping.setCreatedDate(LocalDateTime.now());
         urlMapping.setUser(user);
         UrlMapping saveUrlMapping = urlMappingRepository.save(urlMapping);
+        registerCreated(ResolvedUrl.from(saveUrlMapping));
+        urlDedupIndex.put(user.getId(), digest, dedupEntry(saveUrlMapping, canonicalUrl));
         return convertToDTO(saveUrlMapping);
     }
 
-    // Converts UrlMapping entity to DTO.
+    // Looks up the user's link for a canonical URL: in memory first, then via the url_digest index.
+    private UrlMappingDTO findExisting(User user, String canonicalUrl, long digest) {
+        UrlDedupIndex.Entry entry = urlDedupIndex.get(user.getId(), digest);
+        if (entry != null && entry.canonicalUrl().equals(canonicalUrl)) {
+            UrlMappingDTO urlMappingDTO = new UrlMappingDTO();
+            urlMappingDTO.setId(entry.id());
+            urlMappingDTO.setOriginalUrl(entry.originalUrl());
+            urlMappingDTO.setShortUrl(entry.shortUrl());
+            urlMappingDTO.setClickCount(entry.clickCount() + (int) clickCounterService.pendingDelta(entry.id()));
+            urlMappingDTO.setCreatedDate(entry.createdDate());
+            urlMappingDTO.setUsername(user.getUsername());
+            return urlMappingDTO;
+        }
+        for (UrlMapping urlMapping : urlMappingRepository.findByUserAndUrlDigest(user, digest)) {
+            if (UrlCanonicalizer.canonicalize(urlMapping.getOriginalUrl()).equals(canonicalUrl)) {
+                urlDedupIndex.put(user.getId(), digest, dedupEntry(urlMapping, canonicalUrl));
+                return convertToDTO(urlMapping);
+            }
+        }
+        return null;
+    }
+
+    private static UrlDedupIndex.Entry dedupEntry(UrlMapping urlMapping, String canonicalUrl) {
+        return new UrlDedupIndex.Entry(urlMapping.getId(), urlMapping.getShortUrl(), urlMapping.getOriginalUrl(),
+                canonicalUrl, urlMapping.getClickCount(), urlMapping.getCreatedDate());
+    }
+
+    // Converts UrlMapping entity to DTO, including clicks not yet flushed to the database.
     private UrlMappingDTO convertToDTO(UrlMapping urlMapping) {
         UrlMappingDTO urlMappingDTO = new UrlMappingDTO();
         urlMappingDTO.setId(urlMapping.getId());
         urlMappingDTO.setOriginalUrl(urlMapping.getOriginalUrl());
         urlMappingDTO.setShortUrl(urlMapping.getShortUrl());
-        urlMappingDTO.setClickCount(urlMapping.getClickCount());
+        urlMappingDTO.setClickCount(urlMapping.getClickCount()
+                + (int) clickCounterService.pendingDelta(urlMapping.getId()));
         urlMappingDTO.setCreatedDate(urlMapping.getCreatedDate());
         urlMappingDTO.setUsername(urlMapping.getUser().getUsername());
         return urlMappingDTO;
     }
 
-    // Generates a unique short URL.
-    private String generateShortUrl() {
-        for (int attempts = 0; attempts < 5; attempts++) {
-            String shortUrl = generateRand();
-            if (!urlMappingRepository.existsByShortUrl(shortUrl)) {
-                return shortUrl;
+    // Takes the next generated code.
+    private long generateShortCode() {
+        return ensureUnused(shortCodeGenerator.next());
+    }
+
+    // Generated codes never collide with each other; the Bloom filter only has to rule out the random
+    // codes issued before the generator existed, so in steady state no query runs before the insert.
+    long ensureUnused(long shortCode) {
+        while (true) {
+            if (!shortCodeBloomFilter.mightContain(shortCode)) {
+                return shortCode;
+            }
+            if (!urlMappingRepository.existsByShortUrl(ShortCodeCodec.unpack(shortCode))) {
+                return shortCode;
             }
+            // Taken by a legacy random code: skip to the next id
+            shortCode = shortCodeGenerator.next();
         }
-        throw new RuntimeException("Failed to generate unique short URL after " + 5 + " attempts.Try Again!!");
     }
 
-    // Generates a random string for short URL.
-    private String generateRand() {
-        StringBuilder sb = new StringBuilder(Short_Url_length);
-        for (int i = 0; i < Short_Url_length; i++) {
-            sb.append(Base62.charAt(SECURE_RANDOM.nextInt(62)));
-        }
-        return sb.toString();
+    // Makes a mapping created outside JPA visible to redirects on this node.
+    void registerCreated(ResolvedUrl resolvedUrl) {
+        shortCodeBloomFilter.add(resolvedUrl.shortCode());
+        mappingSnapshotStore.recordCreate(resolvedUrl);
+        urlResolutionCache.put(resolvedUrl);
     }
 
-    // Retrieves all URL mappings for a user.
-    public List<UrlMappingDTO> getUrlsByUser(User user) {
-        return urlMappingRepository.findByUser(user).stream().map(this::convertToDTO).toList();
+    // One page of the user's links in the given order, read as flat rows, plus the cursor of the next
+    // page (null on the last one). Throws IllegalArgumentException for a malformed cursor.
+    public UrlPage getUrlsPage(User user, UrlListOrder order, String cursor, int limit) {
+        // One extra row tells whether another page follows
+        Limit fetch = Limit.of(limit + 1);
+        List<UrlMappingSummary> rows;
+        if (cursor == null) {
+            rows = order == UrlListOrder.RECENT
+                    ? urlMappingRepository.findRecentByUser(user.getId(), fetch)
+                    : urlMappingRepository.findMostClickedByUser(user.getId(), fetch);
+        } else {
+            UrlListOrder.Cursor after = order.parse(cursor);
+            rows = order == UrlListOrder.RECENT
+                    ? urlMappingRepository.findRecentByUserAfter(user.getId(), after.createdDate(), after.id(), fetch)
+                    : urlMappingRepository.findMostClickedByUserAfter(user.getId(), after.clickCount(), after.id(), fetch);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = order.cursorAfter(rows.get(limit - 1));
+        }
+        List<UrlMappingDTO> urls = rows.stream().map(row -> {
+            UrlMappingDTO urlMappingDTO = new UrlMappingDTO();
+            urlMappingDTO.setId(row.id());
+            urlMappingDTO.setOriginalUrl(row.originalUrl());
+            urlMappingDTO.setShortUrl(row.shortUrl());
+            urlMappingDTO.setClickCount(row.clickCount() + (int) clickCounterService.pendingDelta(row.id()));
+            urlMappingDTO.setCreatedDate(row.createdDate());
+            urlMappingDTO.setUsername(user.getUsername());
+            return urlMappingDTO;
+        }).toList();
+        return new UrlPage(urls, nextCursor);
     }
 
     // Gets click events by date range for a short URL.
     public List<ClickEventDTO> getClickEventsByDate(String shortUrl, LocalDateTime startTime, LocalDateTime endTime) {
         UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
         if (urlMapping != null) {
-            return clickEventRepository.findByUrlMappingAndClickDateBetween(urlMapping, startTime, endTime).stream()
-                    .collect(Collectors.groupingBy(click -> click.getClickDate().toLocalDate(), Collectors.counting()))
+            // Served from daily rollups; only partial edge days are counted from raw events
+            return clickRollupService.countsByDay(urlMapping.getId(), startTime, endTime)
                     .entrySet().stream()
                     .map(entry -> {
                         ClickEventDTO clickEventDTO = new ClickEventDTO();
@@ -101,48 +214,115 @@ public class UrlMappingService {
             throw new IllegalArgumentException("User and date range must not be null");
         }
 
-        // Fetch all short URLs for this user
-        List<UrlMapping> urlMappings = urlMappingRepository.findByUser(user);
+        // Sum the user's daily rollups for [startDate, endDate] in one aggregate query
+        return clickRollupService.totalsByUser(user.getId(), startDate, endDate);
+    }
 
-        // If the user has no URLs, avoid calling the IN(...) query with an empty list
-        if (urlMappings == null || urlMappings.isEmpty()) {
-            return Map.of(); // empty map, no clicks
+    // Gets gap-filled click counts for a short URL at the given granularity; null if the URL does not exist.
+    public List<ClickBucketDTO> getClickBuckets(String shortUrl, LocalDateTime startTime, LocalDateTime endTime,
+                                                ClickGranularity granularity) {
+        UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
+        if (urlMapping == null) {
+            return null;
+        }
+        return clickRollupService.bucketsForMapping(urlMapping.getId(), startTime, endTime, granularity);
+    }
+
+    // Gets gap-filled click counts across all of a user's short URLs at the given granularity.
+    public List<ClickBucketDTO> getTotalClickBuckets(User user, LocalDateTime startTime, LocalDateTime endTime,
+                                                     ClickGranularity granularity) {
+        return clickRollupService.bucketsForUser(user.getId(), startTime, endTime, granularity);
+    }
+
+    // Gets clicks and estimated unique visitors per day for a short URL; null if the URL does not exist.
+    public VisitorAnalyticsDTO getVisitorsByDate(String shortUrl, LocalDateTime startTime, LocalDateTime endTime) {
+        UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
+        if (urlMapping == null) {
+            return null;
         }
+        // Visitor sketches are per whole day, so edge days count all of that day's visitors
+        return toVisitorAnalytics(
+                clickRollupService.countsByDay(urlMapping.getId(), startTime, endTime),
+                visitorSketchService.uniqueVisitors(urlMapping.getId(), startTime.toLocalDate(), endTime.toLocalDate()));
+    }
 
-        // Convert LocalDate range to LocalDateTime range: [startDate 00:00, endDate+1 00:00)
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.plusDays(1).atStartOfDay();
+    // Gets clicks and estimated unique visitors per day across all of a user's short URLs.
+    public VisitorAnalyticsDTO getTotalVisitorsByUserAndDate(User user, LocalDate startDate, LocalDate endDate) {
+        return toVisitorAnalytics(
+                clickRollupService.totalsByUser(user.getId(), startDate, endDate),
+                visitorSketchService.uniqueVisitorsForUser(user.getId(), startDate, endDate));
+    }
 
-        // Fetch all click events for those URLs in the given range
-        List<ClickEvents> clickEvents = clickEventRepository
-                .findByUrlMappingInAndClickDateBetween(urlMappings, startDateTime, endDateTime);
+    private static VisitorAnalyticsDTO toVisitorAnalytics(Map<LocalDate, Long> clicks,
+                                                          VisitorSketchService.VisitorEstimates visitors) {
+        TreeSet<LocalDate> days = new TreeSet<>(clicks.keySet());
+        days.addAll(visitors.byDay().keySet());
+        List<DailyVisitorsDTO> daily = days.stream()
+                .map(day -> new DailyVisitorsDTO(day, clicks.getOrDefault(day, 0L), visitors.byDay().getOrDefault(day, 0L)))
+                .toList();
+        long totalClicks = clicks.values().stream().mapToLong(Long::longValue).sum();
+        return new VisitorAnalyticsDTO(daily, totalClicks, visitors.total());
+    }
 
-        // Group clicks by date and count them
-        return clickEvents.stream()
-                .collect(Collectors.groupingBy(
-                        click -> click.getClickDate().toLocalDate(),
-                        Collectors.counting()
-                ));
+    // Gets the hottest links of a sliding window from the in-memory heavy-hitter tracker.
+    public TrendingDTO getTrending(TrendingLinks.Window window, int limit) {
+        TrendingLinks.Ranking ranking = trendingLinks.top(window, limit);
+        Map<Long, UrlMapping> mappings = urlMappingRepository
+                .findAllById(ranking.entries().stream().map(TrendingLinks.Entry::urlMappingId).toList())
+                .stream().collect(Collectors.toMap(UrlMapping::getId, urlMapping -> urlMapping));
+        // Links deleted since they were counted are left out
+        List<TrendingLinkDTO> links = ranking.entries().stream()
+                .filter(entry -> mappings.containsKey(entry.urlMappingId()))
+                .map(entry -> {
+                    UrlMapping urlMapping = mappings.get(entry.urlMappingId());
+                    return new TrendingLinkDTO(urlMapping.getId(), urlMapping.getShortUrl(),
+                            urlMapping.getOriginalUrl(), entry.estimatedClicks());
+                })
+                .toList();
+        return new TrendingDTO(window.label(), ranking.totalClicks(), ranking.errorBound(), links);
     }
 
-    // Retrieves original URL by short URL and logs a click.
-    public UrlMapping getOriginalUrl(String shortUrl) {
+    // Opens a live click stream for a short URL.
+    public SseEmitter subscribeLiveClicks(String shortUrl) {
         UrlMapping urlMapping = urlMappingRepository.findByShortUrl(shortUrl);
-        if (urlMapping != null) {
-            urlMapping.setClickCount(urlMapping.getClickCount() + 1);
-            urlMappingRepository.save(urlMapping);
-            ClickEvents clickEvents = new ClickEvents();
-            clickEvents.setClickDate(LocalDateTime.now());
-            clickEvents.setUrlMapping(urlMapping);
-            clickEventRepository.save(clickEvents);
+        if (urlMapping == null) {
+            throw new ResourceNotFoundException("Short URL not found");
+        }
+        return liveClickFeed.subscribe(urlMapping.getId());
+    }
+
+    // Retrieves original URL by short URL and queues a click by the given visitor.
+    public ResolvedUrl getOriginalUrl(String shortUrl, long visitorHash) {
+        long shortCode = ShortCodeCodec.pack(shortUrl);
+        return ShortCodeCodec.isValid(shortCode) ? getOriginalUrl(shortCode, visitorHash) : null;
+    }
+
+    // Retrieves original URL by packed short code (through the resolution cache) and queues a click by the given visitor.
+    public ResolvedUrl getOriginalUrl(long shortCode, long visitorHash) {
+        // Codes the Bloom filter has never seen are answered without touching cache or database
+        if (!shortCodeBloomFilter.mightResolve(shortCode)) {
+            return null;
+        }
+        ResolvedUrl resolvedUrl = urlResolutionCache.resolve(shortCode).orElse(null);
+        if (resolvedUrl == null && shortCodeBloomFilter.isReady()) {
+            shortCodeBloomFilter.recordFalsePositive();
+        }
+        if (resolvedUrl != null) {
+            clickCounterService.increment(resolvedUrl.id());
+            clickIngestionService.publish(resolvedUrl.id());
+            liveClickFeed.record(resolvedUrl.id());
+            visitorSketchService.record(resolvedUrl.id(), visitorHash);
+            trendingLinks.record(resolvedUrl.id());
         }
-        return urlMapping;
+        return resolvedUrl;
     }
 
-    // Deletes a short URL and its click events, only if it belongs to the given user
+    // Deletes a short URL, only if it belongs to the given user. The mapping is tombstoned, which stops
+    // redirects and analytics at once; LinkPurger removes it and its click events in the background.
     @Transactional
     public void deleteShortUrl(Long id, User user) {
         UrlMapping urlMapping = urlMappingRepository.findById(id)
+                .filter(mapping -> mapping.getDeletedAt() == null)
                 .orElseThrow(() -> new RuntimeException("Short URL not found"));
 
         // Security: ensure the URL belongs to the current user
@@ -150,10 +330,26 @@ public class UrlMappingService {
             throw new RuntimeException("You are not allowed to delete this URL");
         }
 
-        // Delete click events first if you don't have cascade delete set up
-        clickEventRepository.deleteAllByUrlMapping(urlMapping);
+        // Tombstone the mapping; its rows are purged later in bounded batches
+        urlMapping.setDeletedAt(LocalDateTime.now());
+        urlMappingRepository.save(urlMapping);
+        long shortCode = ResolvedUrl.from(urlMapping).shortCode();
+        Long urlDigest = urlMapping.getUrlDigest();
+        // Only once the tombstone is committed: invalidating earlier lets a concurrent read reload the
+        // still-live row into the caches, and a rollback would leave the snapshot recording a delete
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mappingSnapshotStore.recordDelete(shortCode);
+                urlResolutionCache.invalidate(shortCode);
+                if (urlDigest != null) {
+                    urlDedupIndex.invalidate(user.getId(), urlDigest);
+                }
+            }
+        });
+    }
 
-        // Then delete the URL mapping itself
-        urlMappingRepository.delete(urlMapping);
+    // A page of links and the cursor of the page after it, or null.
+    public record UrlPage(List<UrlMappingDTO> urls, String nextCursor) {
     }
-}
\ No newline at end of file
+}
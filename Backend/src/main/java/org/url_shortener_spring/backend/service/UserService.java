@@ -61,6 +61,15 @@ public class UserService {
         return new JwtAuthenticationResponse(jwt);
     }
 
+    // Detached reference to the authenticated user, built from the token's claims without a database read.
+    // Carries only the id and username, which is all ownership checks and new rows need.
+    public User referenceTo(UserDetailsImpl principal) {
+        User user = new User();
+        user.setId(principal.getId());
+        user.setUsername(principal.getUsername());
+        return user;
+    }
+
     // Finds a user by username.
     public User findByUsername(String name) {
         return userRepository.findByUsername(name).orElseThrow(() -> new UsernameNotFoundException("User not found with username:" + name));
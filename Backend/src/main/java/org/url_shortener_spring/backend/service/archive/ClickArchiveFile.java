@@ -0,0 +1,185 @@
+package org.url_shortener_spring.backend.service.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.LongConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Read-only, memory-mapped view of one click archive file.
+// Layout: a fixed header (covered days, min/max click time, counts), then linkCount index entries sorted
+// by url_mapping_id (id, min time, max time, clicks, data offset, compressed and raw length), then the
+// data section. Each link's click times, in microseconds since the epoch, are stored as one column of
+// varint deltas from the link's min time, deflated as a single block. The header and per-link min/max
+// let queries skip whole files and links without inflating anything.
+final class ClickArchiveFile {
+
+    static final int MAGIC = 0x434C4B41; // "CLKA"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 52;
+    static final int LINK_BYTES = 44;
+
+    private final Path path;
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer data;
+    private final LocalDate fromDay;
+    private final LocalDate toDay;
+    private final long minMicros;
+    private final long maxMicros;
+    private final int linkCount;
+    private final long eventCount;
+
+    private ClickArchiveFile(Path path, MappedByteBuffer index, MappedByteBuffer data, LocalDate fromDay,
+                             LocalDate toDay, long minMicros, long maxMicros, int linkCount, long eventCount) {
+        this.path = path;
+        this.index = index;
+        this.data = data;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        this.minMicros = minMicros;
+        this.maxMicros = maxMicros;
+        this.linkCount = linkCount;
+        this.eventCount = eventCount;
+    }
+
+    // Maps an existing archive file; the mapping stays valid after the channel is closed.
+    static ClickArchiveFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Click archive " + path + " is truncated");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Click archive " + path + " has an unknown format");
+            }
+            LocalDate fromDay = LocalDate.ofEpochDay(header.getLong(8));
+            LocalDate toDay = LocalDate.ofEpochDay(header.getLong(16));
+            long minMicros = header.getLong(24);
+            long maxMicros = header.getLong(32);
+            int linkCount = header.getInt(40);
+            long eventCount = header.getLong(44);
+
+            long indexBytes = (long) linkCount * LINK_BYTES;
+            long dataStart = HEADER_BYTES + indexBytes;
+            if (dataStart > size) {
+                throw new IOException("Click archive " + path + " is truncated");
+            }
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, indexBytes);
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, dataStart, size - dataStart);
+            return new ClickArchiveFile(path, index, data, fromDay, toDay, minMicros, maxMicros, linkCount, eventCount);
+        }
+    }
+
+    // Passes each archived click time of the links within [fromMicros, toMicros] to clicks, link by link
+    // and in time order within a link. The header is checked once for all of them.
+    void scan(long[] urlMappingIds, long fromMicros, long toMicros, LongConsumer clicks) {
+        if (eventCount == 0 || toMicros < minMicros || fromMicros > maxMicros) {
+            return;
+        }
+        for (long urlMappingId : urlMappingIds) {
+            int entry = find(urlMappingId);
+            if (entry >= 0) {
+                scanEntry(entry, fromMicros, toMicros, clicks);
+            }
+        }
+    }
+
+    private void scanEntry(int entry, long fromMicros, long toMicros, LongConsumer clicks) {
+        int position = entry * LINK_BYTES;
+        long linkMin = index.getLong(position + 8);
+        long linkMax = index.getLong(position + 16);
+        if (toMicros < linkMin || fromMicros > linkMax) {
+            return;
+        }
+        int count = index.getInt(position + 24);
+        int offset = (int) index.getLong(position + 28);
+        int compressedLength = index.getInt(position + 36);
+        byte[] varints = inflate(offset, compressedLength, index.getInt(position + 40));
+
+        long time = linkMin;
+        int cursor = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = varints[cursor++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            time += delta;
+            if (time > toMicros) {
+                return;
+            }
+            if (time >= fromMicros) {
+                clicks.accept(time);
+            }
+        }
+    }
+
+    // Binary-searches the index; returns the entry number or -1.
+    private int find(long urlMappingId) {
+        int low = 0;
+        int high = linkCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long key = index.getLong(mid * LINK_BYTES);
+            if (key < urlMappingId) {
+                low = mid + 1;
+            } else if (key > urlMappingId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Inflates one link's block straight from the mapped data section.
+    private byte[] inflate(int offset, int compressedLength, int rawLength) {
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice(offset, compressedLength));
+            int filled = 0;
+            while (filled < rawLength) {
+                int n = inflater.inflate(raw, filled, rawLength - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("Click archive " + path + " has a truncated block");
+                }
+                filled += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Click archive " + path + " has a corrupt block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    LocalDate fromDay() {
+        return fromDay;
+    }
+
+    LocalDate toDay() {
+        return toDay;
+    }
+
+    long eventCount() {
+        return eventCount;
+    }
+
+    long sizeBytes() {
+        return HEADER_BYTES + index.capacity() + (long) data.capacity();
+    }
+}
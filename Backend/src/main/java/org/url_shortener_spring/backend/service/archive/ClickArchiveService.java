@@ -0,0 +1,298 @@
+package org.url_shortener_spring.backend.service.archive;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Cold tier for raw click history.
+// A scheduled job moves click_events older than the hot window into append-only archive files (see
+// ClickArchiveFile), a few days per file. Each file is stored in the click_archive table, and every node
+// syncs that table into a local cache directory and maps the files, so all nodes serve the same days.
+// Every day before archivedUntil() is served from the mapped files and never from Postgres, so a range
+// is answered by splitting it at that watermark. Archived rows are deleted only once their file has been
+// in the table for longer than delete-delay, which outlasts the sync interval, so no node still reads
+// those days from click_events; late rows for archived days are rejected by the click writer, and any
+// that slip in while a file is written are deleted with the rest. Daily rollups are untouched, so
+// whole-day analytics never read the archive. Any node may archive; enabling it on one avoids wasted work.
+@Slf4j
+@Component
+public class ClickArchiveService {
+
+    private static final String FIRST_CLICK = "SELECT min(click_date) FROM click_events";
+    private static final String STREAM_CLICKS =
+            "SELECT url_mapping_id, click_date FROM click_events " +
+            "WHERE click_date >= ? AND click_date < ? AND url_mapping_id IS NOT NULL " +
+            "ORDER BY url_mapping_id, click_date";
+    private static final String DELETE_RANGE = "DELETE FROM click_events WHERE click_date >= ? AND click_date < ?";
+    private static final String ARCHIVED_UNTIL = "SELECT max(to_day) FROM click_archive";
+    private static final String DELETABLE_UNTIL = "SELECT max(to_day) FROM click_archive WHERE created_at <= ?";
+    private static final String LIST_SEGMENTS = "SELECT from_day, to_day FROM click_archive ORDER BY from_day";
+    private static final String READ_SEGMENT = "SELECT content FROM click_archive WHERE from_day = ?";
+    private static final String INSERT_SEGMENT =
+            "INSERT INTO click_archive (from_day, to_day, event_count, created_at, content) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (from_day) DO NOTHING";
+    private static final String FILE_SUFFIX = ".cca";
+    private static final DateTimeFormatter NAME_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppConfig.ClickArchive config;
+    private final Path directory;
+
+    // Serializes archive runs and syncs; a ReentrantLock so file and JDBC I/O never pin a virtual thread
+    private final ReentrantLock archiveLock = new ReentrantLock();
+
+    // Mapped files ordered by the days they cover, always a gapless prefix of the click_archive table;
+    // replaced wholesale when a file is added
+    private volatile List<ClickArchiveFile> files = List.of();
+
+    public ClickArchiveService(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                               PlatformTransactionManager transactionManager, AppConfig appConfig,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = appConfig.getClickArchive();
+        this.directory = Paths.get(config.getDirectory());
+
+        Gauge.builder("click.archive.files", this, archive -> archive.files.size())
+                .description("Mapped click archive files")
+                .register(meterRegistry);
+        Gauge.builder("click.archive.events", this,
+                        archive -> archive.files.stream().mapToLong(ClickArchiveFile::eventCount).sum())
+                .description("Click events held in archive files")
+                .register(meterRegistry);
+        Gauge.builder("click.archive.bytes", this,
+                        archive -> archive.files.stream().mapToLong(ClickArchiveFile::sizeBytes).sum())
+                .description("Size of the click archive files")
+                .register(meterRegistry);
+    }
+
+    // Maps every file in click_archive, downloading the ones not in the local cache yet. Stops at the first
+    // file that cannot be read, so the mapped files never skip a day the table has archived.
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.click-archive.sync-interval-ms:60000}")
+    public void sync() {
+        archiveLock.lock();
+        try {
+            syncSegments();
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    private void syncSegments() {
+        List<LocalDate[]> segments = jdbcTemplate.query(LIST_SEGMENTS, (rs, rowNum) ->
+                new LocalDate[]{rs.getDate(1).toLocalDate(), rs.getDate(2).toLocalDate()});
+        List<ClickArchiveFile> current = files;
+        if (segments.size() == current.size()) {
+            return;
+        }
+        Map<LocalDate, ClickArchiveFile> mapped = new HashMap<>();
+        current.forEach(file -> mapped.put(file.fromDay(), file));
+        List<ClickArchiveFile> synced = new ArrayList<>();
+        for (LocalDate[] segment : segments) {
+            ClickArchiveFile file = mapped.get(segment[0]);
+            if (file == null) {
+                try {
+                    file = download(segment[0], segment[1]);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Could not sync click archive from {}", segment[0], e);
+                    break;
+                }
+            }
+            synced.add(file);
+        }
+        files = List.copyOf(synced);
+        log.info("Mapped {} click archive files up to {}", synced.size(), archivedUntil());
+    }
+
+    // Maps a segment from the local cache, fetching it from click_archive first if it is missing.
+    private ClickArchiveFile download(LocalDate from, LocalDate to) throws IOException {
+        Files.createDirectories(directory);
+        Path path = pathFor(from, to);
+        if (Files.exists(path)) {
+            try {
+                return ClickArchiveFile.open(path);
+            } catch (IOException e) {
+                log.warn("Replacing unreadable cached click archive {}", path, e);
+            }
+        }
+        Path download = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            jdbcTemplate.query(READ_SEGMENT, (RowCallbackHandler) rs -> {
+                try (InputStream in = rs.getBinaryStream(1)) {
+                    Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new SQLException("Failed to cache click archive " + path, e);
+                }
+            }, Date.valueOf(from));
+            Files.move(download, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return ClickArchiveFile.open(path);
+        } finally {
+            Files.deleteIfExists(download);
+        }
+    }
+
+    // Start of the first day not archived yet, or null if nothing is archived.
+    public LocalDateTime archivedUntil() {
+        List<ClickArchiveFile> current = files;
+        return current.isEmpty() ? null : current.get(current.size() - 1).toDay().atStartOfDay();
+    }
+
+    // Passes each archived click of the mappings within [from, to] to clicks, reading every file once for
+    // all of them.
+    public void scan(Collection<Long> urlMappingIds, LocalDateTime from, LocalDateTime to,
+                     Consumer<LocalDateTime> clicks) {
+        if (urlMappingIds.isEmpty()) {
+            return;
+        }
+        long[] ids = urlMappingIds.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        long startMicros = toMicros(from);
+        long endMicros = toMicros(to);
+        for (ClickArchiveFile file : files) {
+            if (!file.toDay().atStartOfDay().isAfter(from) || file.fromDay().atStartOfDay().isAfter(to)) {
+                continue;
+            }
+            file.scan(ids, startMicros, endMicros, micros -> clicks.accept(fromMicros(micros)));
+        }
+    }
+
+    // Archives every whole day older than the hot window that is not archived yet.
+    @Scheduled(initialDelayString = "${app.click-archive.interval-ms:21600000}",
+            fixedDelayString = "${app.click-archive.interval-ms:21600000}")
+    public void archive() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        archiveLock.lock();
+        try {
+            archiveOldDays();
+        } finally {
+            archiveLock.unlock();
+        }
+    }
+
+    private void archiveOldDays() {
+        deleteArchived();
+        LocalDate cutoff = LocalDate.now().minusDays(config.getHotDays());
+        Date until = jdbcTemplate.queryForObject(ARCHIVED_UNTIL, Date.class);
+        LocalDate from;
+        if (until != null) {
+            from = until.toLocalDate();
+        } else {
+            Timestamp first = jdbcTemplate.queryForObject(FIRST_CLICK, Timestamp.class);
+            if (first == null) {
+                return;
+            }
+            from = first.toLocalDateTime().toLocalDate();
+        }
+        try {
+            Files.createDirectories(directory);
+            while (from.isBefore(cutoff)) {
+                LocalDate to = from.plusDays(Math.max(1, config.getFileDays()));
+                if (to.isAfter(cutoff)) {
+                    to = cutoff;
+                }
+                ClickArchiveFile file = writeFile(from, to);
+                if (!store(file)) {
+                    log.info("Clicks from {} were archived by another node", from);
+                    break;
+                }
+                log.info("Archived {} clicks from [{}, {}) to {}", file.eventCount(), from, to, file.path());
+                from = to;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Click archiving stopped at {}", from, e);
+        }
+        syncSegments();
+    }
+
+    // Publishes a written file to click_archive; false if another node already stored these days.
+    private boolean store(ClickArchiveFile file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.path())) {
+            long size = Files.size(file.path());
+            return jdbcTemplate.update(INSERT_SEGMENT, ps -> {
+                ps.setDate(1, Date.valueOf(file.fromDay()));
+                ps.setDate(2, Date.valueOf(file.toDay()));
+                ps.setLong(3, file.eventCount());
+                ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+                ps.setBinaryStream(5, in, size);
+            }) == 1;
+        }
+    }
+
+    // Deletes the raw rows of days whose file has been in click_archive for at least delete-delay, one day
+    // per statement so no transaction grows large. Runs on every pass, so a failed delete is retried and
+    // late rows written into an archived day are removed as well.
+    private void deleteArchived() {
+        Date until = jdbcTemplate.queryForObject(DELETABLE_UNTIL, Date.class,
+                Timestamp.valueOf(LocalDateTime.now().minus(config.getDeleteDelay())));
+        Timestamp first = jdbcTemplate.queryForObject(FIRST_CLICK, Timestamp.class);
+        if (until == null || first == null) {
+            return;
+        }
+        for (LocalDate day = first.toLocalDateTime().toLocalDate(); day.isBefore(until.toLocalDate()); day = day.plusDays(1)) {
+            jdbcTemplate.update(DELETE_RANGE, Timestamp.valueOf(day.atStartOfDay()),
+                    Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        }
+    }
+
+    private ClickArchiveFile writeFile(LocalDate from, LocalDate to) throws IOException {
+        try (ClickArchiveWriter writer = new ClickArchiveWriter(pathFor(from, to), from, to)) {
+            readOnlyTransaction.executeWithoutResult(status -> streamingJdbcTemplate.query(STREAM_CLICKS,
+                    (RowCallbackHandler) rs -> {
+                        try {
+                            writer.add(rs.getLong(1), toMicros(rs.getTimestamp(2).toLocalDateTime()));
+                        } catch (IOException e) {
+                            throw new SQLException("Failed to write click archive block", e);
+                        }
+                    }, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay())));
+            return writer.finish();
+        }
+    }
+
+    private Path pathFor(LocalDate from, LocalDate to) {
+        return directory.resolve("clicks-" + NAME_DATE.format(from) + "-" + NAME_DATE.format(to) + FILE_SUFFIX);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,166 @@
+package org.url_shortener_spring.backend.service.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+// Writes one click archive file in the ClickArchiveFile layout.
+// Clicks are added ordered by (url_mapping_id, time) and streamed into index and data temp files next to
+// the target, one deflated block of varint time deltas per link; finish() prepends the header, moves the
+// assembled file into place and maps it. Closing deletes whatever temp files are left.
+final class ClickArchiveWriter implements Closeable {
+
+    private final Path path;
+    private final LocalDate fromDay;
+    private final LocalDate toDay;
+    private final Path indexFile;
+    private final Path dataFile;
+    private final Path archiveFile;
+    private final DataOutputStream index;
+    private final DataOutputStream data;
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private final ByteArrayOutputStream varints = new ByteArrayOutputStream();
+    private final byte[] buffer = new byte[8192];
+
+    private long[] times = new long[1024];
+    private int timeCount;
+    private long currentId;
+    private long dataBytes;
+    private int linkCount;
+    private long eventCount;
+    private long minMicros = Long.MAX_VALUE;
+    private long maxMicros = Long.MIN_VALUE;
+
+    ClickArchiveWriter(Path path, LocalDate fromDay, LocalDate toDay) throws IOException {
+        this.path = path;
+        this.fromDay = fromDay;
+        this.toDay = toDay;
+        Path directory = path.toAbsolutePath().getParent();
+        this.indexFile = Files.createTempFile(directory, "index", ".tmp");
+        this.dataFile = Files.createTempFile(directory, "data", ".tmp");
+        this.archiveFile = path.resolveSibling(path.getFileName() + ".tmp");
+        this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)));
+        this.data = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile)));
+    }
+
+    // Adds one click; calls must be ordered by url_mapping_id and then by time.
+    void add(long urlMappingId, long micros) throws IOException {
+        if (timeCount > 0 && urlMappingId != currentId) {
+            finishLink();
+        }
+        currentId = urlMappingId;
+        if (timeCount == times.length) {
+            times = Arrays.copyOf(times, times.length * 2);
+        }
+        times[timeCount++] = micros;
+    }
+
+    // Assembles header, index and data into the target path and maps it.
+    ClickArchiveFile finish() throws IOException {
+        finishLink();
+        index.close();
+        data.close();
+        if (dataBytes > Integer.MAX_VALUE || (long) linkCount * ClickArchiveFile.LINK_BYTES > Integer.MAX_VALUE) {
+            throw new IOException("Clicks from " + fromDay + " to " + toDay + " exceed one archive file; lower app.click-archive.file-days");
+        }
+
+        try (FileChannel out = FileChannel.open(archiveFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel indexIn = FileChannel.open(indexFile, StandardOpenOption.READ);
+             FileChannel dataIn = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(ClickArchiveFile.HEADER_BYTES)
+                    .putInt(ClickArchiveFile.MAGIC)
+                    .putInt(ClickArchiveFile.VERSION)
+                    .putLong(fromDay.toEpochDay())
+                    .putLong(toDay.toEpochDay())
+                    .putLong(minMicros)
+                    .putLong(maxMicros)
+                    .putInt(linkCount)
+                    .putLong(eventCount);
+            header.clear();
+            out.write(header);
+            transferAll(indexIn, out);
+            transferAll(dataIn, out);
+            out.force(true);
+        }
+        Files.move(archiveFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return ClickArchiveFile.open(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            index.close();
+            data.close();
+        } finally {
+            deflater.end();
+            Files.deleteIfExists(indexFile);
+            Files.deleteIfExists(dataFile);
+            Files.deleteIfExists(archiveFile);
+        }
+    }
+
+    // Writes the buffered link's block and index entry.
+    private void finishLink() throws IOException {
+        if (timeCount == 0) {
+            return;
+        }
+        long linkMin = times[0];
+        long linkMax = times[timeCount - 1];
+        varints.reset();
+        long previous = linkMin;
+        for (int i = 0; i < timeCount; i++) {
+            long delta = times[i] - previous;
+            while ((delta & ~0x7FL) != 0) {
+                varints.write((int) ((delta & 0x7F) | 0x80));
+                delta >>>= 7;
+            }
+            varints.write((int) delta);
+            previous = times[i];
+        }
+        byte[] raw = varints.toByteArray();
+
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        long offset = dataBytes;
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            data.write(buffer, 0, n);
+            dataBytes += n;
+        }
+
+        index.writeLong(currentId);
+        index.writeLong(linkMin);
+        index.writeLong(linkMax);
+        index.writeInt(timeCount);
+        index.writeLong(offset);
+        index.writeInt((int) (dataBytes - offset));
+        index.writeInt(raw.length);
+
+        linkCount++;
+        eventCount += timeCount;
+        minMicros = Math.min(minMicros, linkMin);
+        maxMicros = Math.max(maxMicros, linkMax);
+        timeCount = 0;
+    }
+
+    private static void transferAll(FileChannel in, FileChannel out) throws IOException {
+        long position = 0;
+        long size = in.size();
+        while (position < size) {
+            position += in.transferTo(position, size - position, out);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.url_shortener_spring.backend.service.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.EntityCacheConfig;
+
+import java.util.function.ToLongFunction;
+
+// Publishes hit, miss and hit-ratio meters for each second-level cache region, tagged by region,
+// from Hibernate's statistics (enabled with hibernate.generate_statistics).
+@Component
+public class EntityCacheMetrics {
+
+    private final Statistics statistics;
+
+    public EntityCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (String region : EntityCacheConfig.REGIONS) {
+            FunctionCounter.builder("entity.cache.hits", this, metrics -> metrics.count(region, CacheRegionStatistics::getHitCount))
+                    .description("Second-level cache lookups answered from the region")
+                    .tag("region", region)
+                    .register(meterRegistry);
+            FunctionCounter.builder("entity.cache.misses", this, metrics -> metrics.count(region, CacheRegionStatistics::getMissCount))
+                    .description("Second-level cache lookups that went to the database")
+                    .tag("region", region)
+                    .register(meterRegistry);
+            Gauge.builder("entity.cache.hit.ratio", this, metrics -> metrics.hitRatio(region))
+                    .description("Share of second-level cache lookups answered from the region")
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+    private long count(String region, ToLongFunction<CacheRegionStatistics> counter) {
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        return regionStatistics == null ? 0 : counter.applyAsLong(regionStatistics);
+    }
+
+    private double hitRatio(String region) {
+        long hits = count(region, CacheRegionStatistics::getHitCount);
+        long lookups = hits + count(region, CacheRegionStatistics::getMissCount);
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+}
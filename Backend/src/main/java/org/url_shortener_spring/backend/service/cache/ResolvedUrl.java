@@ -0,0 +1,26 @@
+package org.url_shortener_spring.backend.service.cache;
+
+import org.url_shortener_spring.backend.models.UrlMapping;
+import org.url_shortener_spring.backend.service.ShortCodeCodec;
+
+// Immutable, detached view of a UrlMapping holding only what the redirect path needs.
+public record ResolvedUrl(Long id, long shortCode, String originalUrl) {
+
+    // Builds a ResolvedUrl from a managed UrlMapping entity.
+    public static ResolvedUrl from(UrlMapping urlMapping) {
+        Long shortCode = urlMapping.getShortCode();
+        return new ResolvedUrl(urlMapping.getId(),
+                shortCode != null ? shortCode : ShortCodeCodec.pack(urlMapping.getShortUrl()),
+                urlMapping.getOriginalUrl());
+    }
+
+    // The short code as a string.
+    public String shortUrl() {
+        return ShortCodeCodec.unpack(shortCode);
+    }
+
+    // Rough heap footprint used by the size-aware cache weigher.
+    public int estimatedBytes() {
+        return 64 + 2 * originalUrl.length();
+    }
+}
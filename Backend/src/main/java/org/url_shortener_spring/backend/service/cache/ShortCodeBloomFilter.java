@@ -0,0 +1,301 @@
+package org.url_shortener_spring.backend.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.service.ShortCodeCodec;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory Bloom filter of every existing short code.
+// A "definitely absent" answer lets the public redirect endpoint return 404 without touching the
+// database, and lets code generation skip the existence check. The filter is built by streaming
+// url_mapping.short_code, kept current by local adds plus a periodic catch-up on new ids (so codes
+// created on other nodes appear within one catch-up interval), and rebuilt periodically to drop
+// deleted codes. Until the first build completes every code is reported as possibly present.
+@Slf4j
+@Component
+public class ShortCodeBloomFilter {
+
+    private static final String COUNT_CODES = "SELECT count(*) FROM url_mapping";
+    private static final String STREAM_CODES = "SELECT id, short_code, short_url FROM url_mapping";
+    private static final String STREAM_NEW_CODES = "SELECT id, short_code, short_url FROM url_mapping WHERE id > ?";
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppConfig.BloomFilter config;
+
+    // Serializes rebuilds without pinning a virtual thread while the table is streamed
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Held by add() and while a rebuild swaps filters, so an add lands in the filter that ends up active
+    private final ReentrantLock swapLock = new ReentrantLock();
+
+    private final Counter definiteMisses;
+    private final Counter falsePositives;
+
+    // Filter answering queries; null until the first build has finished
+    private volatile BitArray active;
+
+    // Filter being rebuilt; local adds go to both while it is non-null
+    private volatile BitArray building;
+
+    // Highest url_mapping id already folded into the filter
+    private volatile long watermark;
+
+    public ShortCodeBloomFilter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = appConfig.getBloomFilter();
+
+        this.definiteMisses = Counter.builder("bloom.shortcode.definite.miss")
+                .description("Lookups rejected by the filter without a database query")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("bloom.shortcode.false.positive")
+                .description("Lookups the filter let through that the database did not find")
+                .register(meterRegistry);
+        Gauge.builder("bloom.shortcode.memory.bytes", this, ShortCodeBloomFilter::memoryBytes)
+                .description("Heap used by the filter bit array")
+                .register(meterRegistry);
+        Gauge.builder("bloom.shortcode.fpp.expected", this, ShortCodeBloomFilter::expectedFalsePositiveRate)
+                .description("False-positive probability implied by the current fill")
+                .register(meterRegistry);
+        Gauge.builder("bloom.shortcode.fpp.observed", this, ShortCodeBloomFilter::observedFalsePositiveRate)
+                .description("Share of absent codes the filter failed to reject")
+                .register(meterRegistry);
+    }
+
+    // Whether the first build has completed and answers can be trusted.
+    public boolean isReady() {
+        return config.isEnabled() && active != null;
+    }
+
+    // False only if the code definitely does not exist.
+    public boolean mightContain(long shortCode) {
+        BitArray filter = active;
+        return !config.isEnabled() || filter == null || filter.mightContain(hash(shortCode));
+    }
+
+    // mightContain for a redirect lookup; its definite misses, together with recordFalsePositive(), make
+    // up the observed false-positive rate, so only lookups of requested codes may use it.
+    public boolean mightResolve(long shortCode) {
+        boolean mightContain = mightContain(shortCode);
+        if (!mightContain) {
+            definiteMisses.increment();
+        }
+        return mightContain;
+    }
+
+    // Adds a newly created code.
+    public void add(long shortCode) {
+        long hash = hash(shortCode);
+        swapLock.lock();
+        try {
+            BitArray filter = active;
+            if (filter != null) {
+                filter.put(hash);
+            }
+            BitArray next = building;
+            if (next != null) {
+                next.put(hash);
+            }
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    // Called when the filter let a redirect lookup through but the database had no row for it.
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    // Rebuilds the filter from scratch at startup and then periodically, dropping deleted codes.
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.bloom-filter.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        rebuildLock.lock();
+        try {
+            Long rows = streamingJdbcTemplate.queryForObject(COUNT_CODES, Long.class);
+            long capacity = Math.max(config.getExpectedInsertions(),
+                    (long) ((rows == null ? 0 : rows) * config.getGrowthFactor()));
+            BitArray next = BitArray.create(capacity, config.getFalsePositiveRate());
+            swapLock.lock();
+            try {
+                building = next;
+            } finally {
+                swapLock.unlock();
+            }
+
+            long[] maxId = {watermark};
+            readOnlyTransaction.executeWithoutResult(status ->
+                    streamingJdbcTemplate.query(STREAM_CODES, (RowCallbackHandler) rs -> {
+                        maxId[0] = Math.max(maxId[0], rs.getLong(1));
+                        next.put(hash(shortCode(rs)));
+                    }));
+
+            swapLock.lock();
+            try {
+                active = next;
+                building = null;
+            } finally {
+                swapLock.unlock();
+            }
+            watermark = maxId[0];
+            log.info("Rebuilt short code Bloom filter: {} codes, {} KiB, {} ms", next.insertions(),
+                    next.memoryBytes() / 1024, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild short code Bloom filter", e);
+        } finally {
+            swapLock.lock();
+            try {
+                building = null;
+            } finally {
+                swapLock.unlock();
+            }
+            rebuildLock.unlock();
+        }
+    }
+
+    // Folds in codes created since the last pass, including those created on other nodes.
+    @Scheduled(fixedDelayString = "${app.bloom-filter.catch-up-interval-ms:1000}")
+    public void catchUp() {
+        if (!isReady()) {
+            return;
+        }
+        long[] maxId = {watermark};
+        try {
+            streamingJdbcTemplate.query(STREAM_NEW_CODES, (RowCallbackHandler) rs -> {
+                maxId[0] = Math.max(maxId[0], rs.getLong(1));
+                add(shortCode(rs));
+            }, Math.max(0, watermark - config.getCatchUpOverlap()));
+            watermark = Math.max(watermark, maxId[0]);
+        } catch (RuntimeException e) {
+            log.warn("Short code Bloom filter catch-up failed", e);
+        }
+    }
+
+    // Heap used by the active bit array.
+    public long memoryBytes() {
+        BitArray filter = active;
+        return filter == null ? 0 : filter.memoryBytes();
+    }
+
+    // Theoretical false-positive probability for the current number of insertions.
+    public double expectedFalsePositiveRate() {
+        BitArray filter = active;
+        return filter == null ? 0 : filter.expectedFalsePositiveRate();
+    }
+
+    // False positives divided by all lookups for codes that turned out not to exist.
+    public double observedFalsePositiveRate() {
+        double fp = falsePositives.count();
+        double negatives = fp + definiteMisses.count();
+        return negatives == 0 ? 0 : fp / negatives;
+    }
+
+    // Packed code of a (id, short_code, short_url) row, packing the string for rows not yet backfilled.
+    private static long shortCode(ResultSet rs) throws SQLException {
+        long shortCode = rs.getLong(2);
+        return rs.wasNull() ? ShortCodeCodec.pack(rs.getString(3)) : shortCode;
+    }
+
+    // 64-bit hash of a packed short code (MurmurHash3 finalizer).
+    static long hash(long shortCode) {
+        return mix(shortCode);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // Lock-free bit array with k probes derived by double hashing.
+    static final class BitArray {
+
+        private final AtomicLongArray words;
+        private final long numBits;
+        private final int numHashes;
+        private final LongAdder insertions = new LongAdder();
+
+        private BitArray(long numBits, int numHashes) {
+            this.words = new AtomicLongArray((int) ((numBits + 63) >>> 6));
+            this.numBits = (long) words.length() << 6;
+            this.numHashes = numHashes;
+        }
+
+        // Sizes the array for n insertions at false-positive probability p.
+        static BitArray create(long n, double p) {
+            long numBits = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+            numBits = Math.min(Math.max(numBits, 64), (long) Integer.MAX_VALUE * 64);
+            int numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+            return new BitArray(numBits, numHashes);
+        }
+
+        // Sets the probed bits; only counts as an insertion if at least one bit was new,
+        // so re-adding codes during catch-up does not skew the expected rate.
+        void put(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            boolean changed = false;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+                int index = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((words.get(index) & mask) == 0) {
+                    words.getAndAccumulate(index, mask, (current, m) -> current | m);
+                    changed = true;
+                }
+            }
+            if (changed) {
+                insertions.increment();
+            }
+        }
+
+        boolean mightContain(long hash) {
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long insertions() {
+            return insertions.sum();
+        }
+
+        long memoryBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) numHashes * insertions.sum() / numBits), numHashes);
+        }
+    }
+}
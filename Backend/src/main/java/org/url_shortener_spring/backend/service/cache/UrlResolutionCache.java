@@ -0,0 +1,104 @@
+package org.url_shortener_spring.backend.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.models.UrlMapping;
+import org.url_shortener_spring.backend.repository.UrlMappingRepository;
+import org.url_shortener_spring.backend.service.ShortCodeBackfill;
+import org.url_shortener_spring.backend.service.ShortCodeCodec;
+import org.url_shortener_spring.backend.service.snapshot.MappingSnapshotStore;
+
+import java.util.Optional;
+
+// Read-through cache in front of UrlMappingRepository.findByShortCode, keyed by packed short code.
+// Caffeine's W-TinyLFU policy only admits codes that are more frequent than the eviction victim,
+// so one-off scans cannot flush the hot set. Misses are cached as empty values with a shorter TTL,
+// and concurrent misses on the same code are collapsed into a single query by the loading cache.
+// Loads consult the memory-mapped snapshot before falling through to the database. Codes deleted on
+// other nodes are invalidated by the snapshot store's tombstone poll.
+@Component
+public class UrlResolutionCache {
+
+    private final LoadingCache<Long, Optional<ResolvedUrl>> cache;
+    private final Counter negativeHits;
+
+    public UrlResolutionCache(UrlMappingRepository urlMappingRepository, MappingSnapshotStore mappingSnapshotStore,
+                              ShortCodeBackfill shortCodeBackfill, AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.ResolutionCache config = appConfig.getResolutionCache();
+        long ttlNanos = config.getTtl().toNanos();
+        long negativeTtlNanos = config.getNegativeTtl().toNanos();
+
+        Caffeine<Long, Optional<ResolvedUrl>> builder = Caffeine.newBuilder()
+                .expireAfter(new Expiry<Long, Optional<ResolvedUrl>>() {
+                    @Override
+                    public long expireAfterCreate(Long key, Optional<ResolvedUrl> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long key, Optional<ResolvedUrl> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, Optional<ResolvedUrl> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats();
+
+        // Bound by approximate bytes when configured, otherwise by entry count
+        if (config.getMaxBytes() > 0) {
+            builder.maximumWeight(config.getMaxBytes())
+                    .weigher((Long key, Optional<ResolvedUrl> value) ->
+                            value.map(ResolvedUrl::estimatedBytes).orElse(64));
+        } else {
+            builder.maximumSize(config.getMaxEntries());
+        }
+
+        this.cache = builder.build(shortCode -> {
+            ResolvedUrl fromSnapshot = mappingSnapshotStore.lookup(shortCode);
+            if (fromSnapshot != null) {
+                return Optional.of(fromSnapshot);
+            }
+            UrlMapping urlMapping = urlMappingRepository.findByShortCode(shortCode);
+            if (urlMapping == null && !shortCodeBackfill.isComplete()) {
+                urlMapping = urlMappingRepository.findByShortUrl(ShortCodeCodec.unpack(shortCode));
+            }
+            return Optional.ofNullable(urlMapping).map(ResolvedUrl::from);
+        });
+        this.negativeHits = Counter.builder("url.resolution.negative")
+                .description("Lookups that resolved to an unknown short code")
+                .register(meterRegistry);
+
+        // Publishes hit/miss/eviction/load counters as cache.* meters
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "url.resolution");
+
+        mappingSnapshotStore.onTombstone(cache::invalidate);
+    }
+
+    // Resolves a packed short code, loading it from the database at most once per expiry.
+    public Optional<ResolvedUrl> resolve(long shortCode) {
+        Optional<ResolvedUrl> resolved = cache.get(shortCode);
+        if (resolved.isEmpty()) {
+            negativeHits.increment();
+        }
+        return resolved;
+    }
+
+    // Seeds the cache with a freshly created mapping, replacing any remembered miss.
+    public void put(ResolvedUrl resolvedUrl) {
+        cache.put(resolvedUrl.shortCode(), Optional.of(resolvedUrl));
+    }
+
+    // Drops a code from the cache, e.g. after it has been deleted.
+    public void invalidate(long shortCode) {
+        cache.invalidate(shortCode);
+    }
+}
@@ -0,0 +1,159 @@
+package org.url_shortener_spring.backend.service.clicks;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Accumulates per-link click deltas in striped LongAdders and flushes them periodically
+// with one batched "click_count = click_count + ?" update, so concurrent clicks on a viral link
+// neither lose updates nor serialize on the url_mapping row. A delta taken out of the adders stays
+// visible through pendingDelta() until the UPDATE carrying it has committed (or been put back).
+@Slf4j
+@Component
+public class ClickCounterService {
+
+    private static final String INCREMENT_CLICK_COUNT =
+            "UPDATE url_mapping SET click_count = click_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // Serializes flushes; a ReentrantLock so the JDBC call never pins a virtual thread
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Guards the hand-off of deltas between the adders, retired and inFlight, so pendingDelta() never
+    // sees a delta in two places or in none; increments do not take it
+    private final ReentrantReadWriteLock handoffLock = new ReentrantReadWriteLock();
+
+    // Adders removed from the map during the previous flush; drained once more in case a
+    // redirect thread still held a reference when they were removed.
+    private Map<Long, LongAdder> retired = Map.of();
+
+    // Deltas taken out of the adders by the flush in progress, not committed yet
+    private Map<Long, Long> inFlight = Map.of();
+
+    public ClickCounterService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Records one click for the given mapping.
+    public void increment(long urlMappingId) {
+        LongAdder adder = pending.get(urlMappingId);
+        if (adder == null) {
+            adder = pending.computeIfAbsent(urlMappingId, id -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    // Clicks recorded for the mapping that have not been written to url_mapping yet, including those
+    // a flush is writing right now.
+    public long pendingDelta(long urlMappingId) {
+        handoffLock.readLock().lock();
+        try {
+            long delta = inFlight.getOrDefault(urlMappingId, 0L);
+            LongAdder adder = pending.get(urlMappingId);
+            if (adder != null) {
+                delta += adder.sum();
+            }
+            LongAdder retiredAdder = retired.get(urlMappingId);
+            if (retiredAdder != null) {
+                delta += retiredAdder.sum();
+            }
+            return delta;
+        } finally {
+            handoffLock.readLock().unlock();
+        }
+    }
+
+    // Writes accumulated deltas in one JDBC batch; idle links are dropped from the map.
+    @Scheduled(fixedDelayString = "${app.click-counters.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushDeltas();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushDeltas() {
+        Map<Long, Long> deltas = new HashMap<>();
+        handoffLock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, LongAdder> entry : retired.entrySet()) {
+                take(deltas, entry.getKey(), entry.getValue());
+            }
+            Map<Long, LongAdder> nowRetired = new HashMap<>();
+            for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+                if (!take(deltas, entry.getKey(), entry.getValue())
+                        && pending.remove(entry.getKey(), entry.getValue())) {
+                    nowRetired.put(entry.getKey(), entry.getValue());
+                }
+            }
+            retired = nowRetired;
+            inFlight = deltas;
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INCREMENT_CLICK_COUNT, deltas.entrySet(), deltas.size(), (ps, delta) -> {
+                ps.setLong(1, delta.getValue());
+                ps.setLong(2, delta.getKey());
+            });
+            // The update bypasses Hibernate on purpose: cached UrlMapping entities keep their click_count
+            // as of caching (see UrlMapping.clickCount), so hot links stay in the second-level cache
+            completeFlush(null);
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them
+            log.warn("Failed to flush click counters for {} links", deltas.size(), e);
+            completeFlush(deltas);
+        }
+    }
+
+    // Moves an adder's current sum into deltas; subtracting it rather than resetting keeps increments
+    // that race with the flush. Returns false if there was nothing to take.
+    private static boolean take(Map<Long, Long> deltas, long urlMappingId, LongAdder adder) {
+        long delta = adder.sum();
+        if (delta == 0) {
+            return false;
+        }
+        adder.add(-delta);
+        deltas.merge(urlMappingId, delta, Long::sum);
+        return true;
+    }
+
+    // Retires the in-flight deltas once their UPDATE has committed, or puts failed ones back.
+    private void completeFlush(Map<Long, Long> failed) {
+        handoffLock.writeLock().lock();
+        try {
+            if (failed != null) {
+                failed.forEach((urlMappingId, delta) ->
+                        pending.computeIfAbsent(urlMappingId, id -> new LongAdder()).add(delta));
+            }
+            inFlight = Map.of();
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+    }
+
+    // Flushes outstanding deltas on graceful shutdown.
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        // Second pass drains the adders retired by the first one
+        flush();
+    }
+}
@@ -0,0 +1,54 @@
+package org.url_shortener_spring.backend.service.clicks;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+// Bucket size for click analytics; truncation matches PostgreSQL date_trunc (ISO weeks start on Monday)
+public enum ClickGranularity {
+    MINUTE, HOUR, DAY, WEEK, MONTH;
+
+    // Start of the bucket containing time.
+    public LocalDateTime truncate(LocalDateTime time) {
+        return switch (this) {
+            case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+            case WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        };
+    }
+
+    // Start of the bucket after the one starting at bucket.
+    public LocalDateTime next(LocalDateTime bucket) {
+        return switch (this) {
+            case MINUTE -> bucket.plusMinutes(1);
+            case HOUR -> bucket.plusHours(1);
+            case DAY -> bucket.plusDays(1);
+            case WEEK -> bucket.plusWeeks(1);
+            case MONTH -> bucket.plusMonths(1);
+        };
+    }
+
+    // Number of buckets a gap-filled series over [start, end] has.
+    public long bucketCount(LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start)) {
+            return 0;
+        }
+        ChronoUnit unit = switch (this) {
+            case MINUTE -> ChronoUnit.MINUTES;
+            case HOUR -> ChronoUnit.HOURS;
+            case DAY -> ChronoUnit.DAYS;
+            case WEEK -> ChronoUnit.WEEKS;
+            case MONTH -> ChronoUnit.MONTHS;
+        };
+        return unit.between(truncate(start), truncate(end)) + 1;
+    }
+
+    // date_trunc field name; only the sub-day granularities are truncated in SQL.
+    String sqlField() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,450 @@
+package org.url_shortener_spring.backend.service.clicks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.service.archive.ClickArchiveService;
+
+import java.io.*;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Takes click persistence off the redirect path.
+// Redirects publish a ClickRecord into a bounded queue; a single writer thread drains it in batches
+// and writes them with JDBC batch inserts. When the queue is full the configured overflow policy
+// decides whether the caller blocks briefly, the click is dropped and counted, or it is spilled to disk.
+// Spilled clicks are replayed one batch per writer cycle even while the queue is busy, and all at once
+// when it is idle, so sustained traffic cannot postpone them indefinitely.
+@Slf4j
+@Component
+public class ClickIngestionService {
+
+    // A plain VALUES insert, so the driver's reWriteBatchedInserts folds a batch into multi-row statements
+    private static final String INSERT_CLICK = "INSERT INTO click_events (click_date, url_mapping_id) VALUES (?, ?)";
+    // Mappings of a batch that still exist and are not deleted (or tombstoned)
+    private static final String LIVE_MAPPINGS = "SELECT id FROM url_mapping WHERE id = ANY (?) AND deleted_at IS NULL";
+    private static final String SPILL_FILE = "clicks.spill";
+    private static final String REPLAY_SUFFIX = ".replay";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClickRollupService clickRollupService;
+    private final ClickArchiveService clickArchive;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig.ClickIngestion config;
+    private final BlockingQueue<ClickRecord> queue;
+    private final Path spillDirectory;
+    private final boolean virtualThreads;
+    // ReentrantLock rather than synchronized so file I/O never pins a virtual thread's carrier
+    private final ReentrantLock spillLock = new ReentrantLock();
+    // Sequence of the newest replay file; replay files are taken in sequence order, oldest first
+    private final AtomicLong replaySequence = new AtomicLong();
+
+    private final Counter droppedClicks;
+    private final Counter spilledClicks;
+    private final Counter failedClicks;
+    private final Counter lateClicks;
+    private final Timer batchTimer;
+
+    private volatile boolean running;
+    private volatile boolean spillPending;
+    private DataOutputStream spillOut;
+    private Thread writer;
+
+    // Spill file being replayed and its stream, positioned at the next unreplayed record; writer thread only
+    private Path replayPath;
+    private DataInputStream replayIn;
+
+    public ClickIngestionService(JdbcTemplate jdbcTemplate, ClickRollupService clickRollupService,
+                                 ClickArchiveService clickArchive, PlatformTransactionManager transactionManager,
+                                 AppConfig appConfig, MeterRegistry meterRegistry,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clickRollupService = clickRollupService;
+        this.clickArchive = clickArchive;
+        this.virtualThreads = virtualThreads;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = appConfig.getClickIngestion();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.spillDirectory = Paths.get(config.getSpillDirectory());
+
+        Gauge.builder("clicks.ingest.queue.depth", queue, Collection::size)
+                .description("Clicks waiting to be written")
+                .register(meterRegistry);
+        this.droppedClicks = Counter.builder("clicks.ingest.dropped")
+                .description("Clicks dropped because the queue was full")
+                .register(meterRegistry);
+        this.spilledClicks = Counter.builder("clicks.ingest.spilled")
+                .description("Clicks parked on local disk")
+                .register(meterRegistry);
+        this.failedClicks = Counter.builder("clicks.ingest.failed")
+                .description("Clicks lost because a batch could not be written")
+                .register(meterRegistry);
+        this.lateClicks = Counter.builder("clicks.ingest.late")
+                .description("Replayed clicks dropped because their day was already archived")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("clicks.ingest.batch")
+                .description("Latency of one click batch write")
+                .register(meterRegistry);
+    }
+
+    // Starts the background writer and picks up clicks spilled by a previous run.
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(spillDirectory);
+        boolean pending = false;
+        long lastSequence = 0;
+        try (DirectoryStream<Path> replays = Files.newDirectoryStream(spillDirectory, "*" + REPLAY_SUFFIX)) {
+            for (Path replay : replays) {
+                pending = true;
+                lastSequence = Math.max(lastSequence, sequenceOf(replay));
+            }
+        }
+        replaySequence.set(lastSequence);
+        Path leftover = spillDirectory.resolve(SPILL_FILE);
+        if (Files.exists(leftover)) {
+            Files.move(leftover, nextReplayFile());
+            pending = true;
+        }
+        spillPending = pending;
+
+        running = true;
+        Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        writer = builder.name("click-writer").unstarted(this::runWriter);
+        writer.start();
+    }
+
+    // Publishes a click for the given mapping without touching the database.
+    public void publish(long urlMappingId) {
+        ClickRecord clickRecord = new ClickRecord(urlMappingId, LocalDateTime.now());
+        if (queue.offer(clickRecord)) {
+            return;
+        }
+        switch (config.getOverflowPolicy()) {
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(clickRecord, config.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                        droppedClicks.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedClicks.increment();
+                }
+            }
+            case SPILL -> spill(List.of(clickRecord));
+            default -> droppedClicks.increment();
+        }
+    }
+
+    // Current number of clicks waiting in memory.
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    // Writer loop: waits up to flushInterval for the first click, then drains up to batchSize.
+    private void runWriter() {
+        int batchSize = config.getBatchSize();
+        long flushIntervalNanos = config.getFlushInterval().toNanos();
+        List<ClickRecord> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                ClickRecord first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    // Idle: replay until the spill is empty, a write fails or clicks arrive
+                    while (queue.isEmpty() && replayBatch()) {
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+                // Busy: one spilled batch per cycle, so replay keeps a bounded share of the writer
+                replayBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                log.error("Click writer iteration failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        suspendReplay();
+    }
+
+    // Writes one batch, parking it on disk if the database rejects it.
+    private void writeBatch(List<ClickRecord> batch) {
+        try {
+            persist(batch);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} clicks, spilling to disk", batch.size(), e);
+            spill(batch);
+        }
+    }
+
+    // Inserts the click rows and their daily rollup increments in one transaction. Clicks whose mapping was
+    // deleted while they were queued are left out first, so one stale row cannot poison the batch; a mapping
+    // purged between that check and the insert fails the batch, which is spilled and filtered on replay.
+    private void persist(List<ClickRecord> batch) {
+        batchTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<ClickRecord> live = withLiveMappings(afterArchive(batch));
+            if (live.isEmpty()) {
+                return;
+            }
+            jdbcTemplate.batchUpdate(INSERT_CLICK, live, live.size(), (ps, clickRecord) -> {
+                ps.setObject(1, clickRecord.clickDate());
+                ps.setLong(2, clickRecord.urlMappingId());
+            });
+            clickRollupService.record(live);
+        }));
+    }
+
+    // Drops clicks (only ever old spilled ones) for days already moved to the click archive, which is
+    // never rewritten; their raw rows would not be served and would be deleted with the archived days.
+    private List<ClickRecord> afterArchive(List<ClickRecord> batch) {
+        LocalDateTime archivedUntil = clickArchive.archivedUntil();
+        if (archivedUntil == null
+                || batch.stream().noneMatch(clickRecord -> clickRecord.clickDate().isBefore(archivedUntil))) {
+            return batch;
+        }
+        List<ClickRecord> current = batch.stream()
+                .filter(clickRecord -> !clickRecord.clickDate().isBefore(archivedUntil))
+                .toList();
+        lateClicks.increment(batch.size() - current.size());
+        return current;
+    }
+
+    private List<ClickRecord> withLiveMappings(List<ClickRecord> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        Long[] ids = batch.stream().map(ClickRecord::urlMappingId).distinct().toArray(Long[]::new);
+        Set<Long> live = new HashSet<>();
+        jdbcTemplate.query(LIVE_MAPPINGS, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) rs -> live.add(rs.getLong(1)));
+        if (live.size() == ids.length) {
+            return batch;
+        }
+        return batch.stream().filter(clickRecord -> live.contains(clickRecord.urlMappingId())).toList();
+    }
+
+    // Appends clicks to the local spill file for the writer to replay.
+    private void spill(List<ClickRecord> clickRecords) {
+        spillLock.lock();
+        try {
+            if (spillOut == null) {
+                spillOut = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(spillDirectory.resolve(SPILL_FILE).toFile(), true)));
+            }
+            for (ClickRecord clickRecord : clickRecords) {
+                spillOut.writeLong(clickRecord.urlMappingId());
+                spillOut.writeLong(clickRecord.clickDate().toEpochSecond(ZoneOffset.UTC));
+                spillOut.writeInt(clickRecord.clickDate().getNano());
+            }
+            spilledClicks.increment(clickRecords.size());
+            spillPending = true;
+        } catch (IOException e) {
+            log.error("Failed to spill {} clicks", clickRecords.size(), e);
+            failedClicks.increment(clickRecords.size());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // Seals the active spill file for replay so new spills go to a fresh file.
+    private void rotateSpillFile() throws IOException {
+        spillLock.lock();
+        try {
+            if (spillOut != null) {
+                spillOut.close();
+                spillOut = null;
+            }
+            Path active = spillDirectory.resolve(SPILL_FILE);
+            if (Files.exists(active)) {
+                Files.move(active, nextReplayFile(),
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // Replays the next batch of spilled clicks, opening the oldest sealed spill file when none is open.
+    // Returns false when nothing is pending or the batch could not be written; the unwritten rest of the
+    // file is then kept in a new spill file for a later attempt.
+    private boolean replayBatch() {
+        if (!spillPending) {
+            return false;
+        }
+        try {
+            if (replayIn == null && !openNextReplay()) {
+                return false;
+            }
+            int batchSize = config.getBatchSize();
+            List<ClickRecord> batch = new ArrayList<>(batchSize);
+            boolean more = true;
+            while (batch.size() < batchSize && (more = readRecord(replayIn, batch))) {
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    persist(batch);
+                } catch (RuntimeException e) {
+                    log.warn("Replay of {} failed, will retry later", replayPath, e);
+                    keepRemainder(batch, replayIn);
+                    closeReplay();
+                    return false;
+                }
+            }
+            if (!more) {
+                closeReplay();
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to replay spilled clicks", e);
+            return false;
+        }
+    }
+
+    // Opens the oldest sealed spill file; the active file is only sealed once the older ones are replayed.
+    private boolean openNextReplay() throws IOException {
+        Path next = oldestReplayFile();
+        if (next == null) {
+            // Cleared before sealing, so a spill racing with the seal sets it again
+            spillPending = false;
+            rotateSpillFile();
+            next = oldestReplayFile();
+            if (next == null) {
+                return false;
+            }
+            spillPending = true;
+        }
+        replayPath = next;
+        replayIn = new DataInputStream(new BufferedInputStream(Files.newInputStream(next)));
+        return true;
+    }
+
+    private Path oldestReplayFile() throws IOException {
+        Path oldest = null;
+        try (DirectoryStream<Path> replays = Files.newDirectoryStream(spillDirectory, "*" + REPLAY_SUFFIX)) {
+            for (Path replay : replays) {
+                if (oldest == null || sequenceOf(replay) < sequenceOf(oldest)) {
+                    oldest = replay;
+                }
+            }
+        }
+        return oldest;
+    }
+
+    // Names the next replay file, zero-padded so a directory listing shows them in order as well.
+    private Path nextReplayFile() {
+        return spillDirectory.resolve(String.format("%019d", replaySequence.incrementAndGet()) + REPLAY_SUFFIX);
+    }
+
+    // Sequence number in a replay file's name; a name that is not a number sorts first.
+    private static long sequenceOf(Path replay) {
+        String name = replay.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - REPLAY_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    // Closes and deletes the file being replayed; everything in it has been written or kept elsewhere.
+    private void closeReplay() throws IOException {
+        replayIn.close();
+        Files.delete(replayPath);
+        replayIn = null;
+        replayPath = null;
+    }
+
+    // On shutdown, moves the unreplayed rest of an open replay file to a new file so a restart neither
+    // loses it nor replays the part already written.
+    private void suspendReplay() {
+        if (replayIn == null) {
+            return;
+        }
+        try {
+            keepRemainder(List.of(), replayIn);
+            closeReplay();
+        } catch (IOException e) {
+            log.error("Failed to keep the rest of {}", replayPath, e);
+        }
+    }
+
+    // Reads one spilled record into the batch; returns false at end of file.
+    private boolean readRecord(DataInputStream in, List<ClickRecord> batch) throws IOException {
+        try {
+            long urlMappingId = in.readLong();
+            long epochSecond = in.readLong();
+            int nano = in.readInt();
+            batch.add(new ClickRecord(urlMappingId, LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC)));
+            return true;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // Writes the failed batch plus the unread rest of a replay file to a new replay file.
+    private void keepRemainder(List<ClickRecord> batch, DataInputStream in) throws IOException {
+        Path remainder = nextReplayFile();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(remainder)))) {
+            for (ClickRecord clickRecord : batch) {
+                out.writeLong(clickRecord.urlMappingId());
+                out.writeLong(clickRecord.clickDate().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(clickRecord.clickDate().getNano());
+            }
+            in.transferTo(out);
+        }
+    }
+
+    // Flushes queued clicks on graceful shutdown; anything left after the timeout is spilled.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(config.getShutdownTimeout().toMillis());
+            if (writer.isAlive()) {
+                writer.interrupt();
+            }
+        }
+        List<ClickRecord> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            spill(remaining);
+        }
+        spillLock.lock();
+        try {
+            if (spillOut != null) {
+                spillOut.close();
+                spillOut = null;
+            }
+        } catch (IOException e) {
+            log.error("Failed to close click spill file", e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+}
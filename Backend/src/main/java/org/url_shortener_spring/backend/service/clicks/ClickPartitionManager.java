@@ -0,0 +1,222 @@
+package org.url_shortener_spring.backend.service.clicks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Keeps click_events range-partitioned by click_date.
+// On first run the existing table is converted: it is renamed, attached as the partition holding all
+// history up to the end of the current interval, and a partitioned click_events takes its place. After that each
+// pass creates partitions `premake` intervals ahead, and drops whole partitions that fall entirely
+// outside the retention period (daily rollups keep their counts). The (url_mapping_id, click_date)
+// index is declared on the parent so every partition gets its own local copy, and range predicates on
+// click_date let the planner skip partitions outside the range. Partitions are named
+// click_events_p<from>_<to> (and click_events_before_<to> for the converted table), which is how their
+// bounds are read back. All DDL runs under an advisory lock, so nodes never race.
+@Slf4j
+@Component
+public class ClickPartitionManager {
+
+    // Arbitrary constant identifying this job's advisory lock
+    private static final long ADVISORY_LOCK_KEY = 0x636c69636b706172L;
+    private static final DateTimeFormatter NAME_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String PARTITION_PREFIX = "click_events_p";
+    private static final String LEGACY_PREFIX = "click_events_before_";
+    private static final String LEGACY_BOUND_CHECK = "click_events_legacy_bound";
+
+    private static final String IS_PARTITIONED =
+            "SELECT c.relkind = 'p' FROM pg_class c WHERE c.oid = to_regclass('click_events')";
+    private static final String LIST_PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'click_events'::regclass";
+    private static final String PRIMARY_KEY_NAME =
+            "SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig.ClickPartitions config;
+
+    public ClickPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = appConfig.getClickPartitions();
+    }
+
+    // Converts the table if needed, creates upcoming partitions and applies retention.
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.click-partitions.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            LocalDate currentStart = align(LocalDate.now());
+            // The legacy table keeps the current interval's rows, so it is bounded at the start of the next one
+            LocalDate legacyBound = next(currentStart);
+            if (Boolean.FALSE.equals(locked(() -> jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class)))) {
+                prepareConversion(legacyBound);
+            }
+            locked(() -> {
+                Boolean partitioned = jdbcTemplate.queryForObject(IS_PARTITIONED, Boolean.class);
+                if (partitioned == null) {
+                    // Hibernate has not created the table yet; try again on the next pass
+                    return null;
+                }
+                if (!partitioned) {
+                    convert(legacyBound);
+                }
+                createAhead(currentStart);
+                applyRetention();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("click_events partition maintenance failed", e);
+        }
+    }
+
+    // Runs work in its own transaction under the advisory lock.
+    private <T> T locked(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, ADVISORY_LOCK_KEY);
+            return work.get();
+        });
+    }
+
+    // Proves every existing row lies below the legacy bound before the swap, so ATTACH PARTITION can skip
+    // its validation scan. The constraint is added NOT VALID (a brief lock, no scan) and validated in a
+    // separate transaction, which scans under SHARE UPDATE EXCLUSIVE and so does not block click inserts.
+    private void prepareConversion(LocalDate legacyBound) {
+        locked(() -> {
+            jdbcTemplate.execute("ALTER TABLE click_events DROP CONSTRAINT IF EXISTS " + LEGACY_BOUND_CHECK);
+            jdbcTemplate.execute("ALTER TABLE click_events ADD CONSTRAINT " + LEGACY_BOUND_CHECK +
+                    " CHECK (click_date < '" + legacyBound + "') NOT VALID");
+            return null;
+        });
+        locked(() -> {
+            jdbcTemplate.execute("ALTER TABLE click_events VALIDATE CONSTRAINT " + LEGACY_BOUND_CHECK);
+            return null;
+        });
+    }
+
+    // Swaps the plain table for a partitioned one, keeping the old rows as its first partition. The
+    // validated bound check lets ATTACH PARTITION skip its scan; the partition bound then replaces it.
+    private void convert(LocalDate legacyBound) {
+        String legacy = LEGACY_PREFIX + NAME_DATE.format(legacyBound);
+        log.info("Converting click_events to a partitioned table; existing rows become partition {}", legacy);
+
+        jdbcTemplate.execute("ALTER TABLE click_events RENAME TO " + legacy);
+        String primaryKey = jdbcTemplate.queryForObject(PRIMARY_KEY_NAME, String.class, legacy);
+        if (primaryKey != null) {
+            jdbcTemplate.execute("ALTER TABLE " + legacy + " RENAME CONSTRAINT " + primaryKey + " TO " + legacy + "_pkey");
+        }
+        // LinkPurger may have indexed the plain table under the name the parent index takes
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_click_events_mapping_date RENAME TO " + legacy + "_mapping_date");
+        // Identity columns cannot be attached as partitions; ids continue from a plain sequence instead
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        Long maxId = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM " + legacy, Long.class);
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS click_events_id_seq START WITH " + (maxId + 1));
+
+        jdbcTemplate.execute("CREATE TABLE click_events (" +
+                "id bigint NOT NULL DEFAULT nextval('click_events_id_seq'), " +
+                "click_date timestamp(6) NOT NULL, " +
+                "url_mapping_id bigint REFERENCES url_mapping (id), " +
+                "PRIMARY KEY (id, click_date)" +
+                ") PARTITION BY RANGE (click_date)");
+        jdbcTemplate.execute("ALTER SEQUENCE click_events_id_seq OWNED BY click_events.id");
+        jdbcTemplate.execute("CREATE INDEX idx_click_events_mapping_date ON click_events (url_mapping_id, click_date)");
+        jdbcTemplate.execute("ALTER TABLE click_events ATTACH PARTITION " + legacy +
+                " FOR VALUES FROM (MINVALUE) TO ('" + legacyBound + "')");
+        jdbcTemplate.execute("ALTER TABLE " + legacy + " DROP CONSTRAINT IF EXISTS " + LEGACY_BOUND_CHECK);
+    }
+
+    // Creates partitions up to `premake` intervals past the current one, continuing from the last bound.
+    private void createAhead(LocalDate currentStart) {
+        LocalDate from = currentStart;
+        for (String partition : partitions()) {
+            LocalDate upper = upperBound(partition);
+            if (upper != null && upper.isAfter(from)) {
+                from = upper;
+            }
+        }
+        LocalDate until = currentStart;
+        for (int i = 0; i <= config.getPremake(); i++) {
+            until = next(until);
+        }
+        while (from.isBefore(until)) {
+            LocalDate to = next(align(from));
+            String name = PARTITION_PREFIX + NAME_DATE.format(from) + "_" + NAME_DATE.format(to);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF click_events " +
+                    "FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            log.info("Created click_events partition {}", name);
+            from = to;
+        }
+    }
+
+    // Drops partitions whose whole range is older than the retention period.
+    private void applyRetention() {
+        Period retention = config.getRetention();
+        if (retention == null || retention.isZero()) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minus(retention);
+        for (String partition : partitions()) {
+            LocalDate upper = upperBound(partition);
+            if (upper != null && !upper.isAfter(cutoff)) {
+                jdbcTemplate.execute("ALTER TABLE click_events DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped click_events partition {} (retention {})", partition, retention);
+            }
+        }
+    }
+
+    // Start of the interval containing date.
+    private LocalDate align(LocalDate date) {
+        return switch (config.getInterval()) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    // Start of the interval after the one starting at start.
+    private LocalDate next(LocalDate start) {
+        return switch (config.getInterval()) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+    }
+
+    // Exclusive upper bound encoded in a partition name, or null for names this class did not create.
+    private static LocalDate upperBound(String partition) {
+        String to;
+        if (partition.startsWith(LEGACY_PREFIX)) {
+            to = partition.substring(LEGACY_PREFIX.length());
+        } else if (partition.startsWith(PARTITION_PREFIX) && partition.length() == PARTITION_PREFIX.length() + 17) {
+            to = partition.substring(PARTITION_PREFIX.length() + 9);
+        } else {
+            return null;
+        }
+        try {
+            return LocalDate.parse(to, NAME_DATE);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
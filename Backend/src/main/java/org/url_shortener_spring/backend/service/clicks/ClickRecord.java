@@ -0,0 +1,7 @@
+package org.url_shortener_spring.backend.service.clicks;
+
+import java.time.LocalDateTime;
+
+// Compact click captured on the redirect path and persisted later by the background writer.
+public record ClickRecord(long urlMappingId, LocalDateTime clickDate) {
+}
@@ -0,0 +1,306 @@
+package org.url_shortener_spring.backend.service.clicks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.dtos.ClickBucketDTO;
+import org.url_shortener_spring.backend.service.archive.ClickArchiveService;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Daily click counts per short URL, kept in click_daily_rollup so analytics never scan raw events.
+// The click writer adds each batch's per-day counts with an upsert in the same transaction as the raw
+// inserts, so the rollup (including the current day) always agrees with click_events. Raw events are
+// only read for the partial days at the edges of a datetime range and for minute/hour buckets, and are
+// always aggregated in SQL rather than loaded as entities. Parts of a raw range before the archive
+// watermark are read from the click archive instead.
+// Writers and the backfill's per-day recount are ordered by an advisory lock: each writer transaction
+// holds it shared, a recount holds it exclusively, so the recount sees every committed batch and every
+// later batch adds on top of it.
+@Slf4j
+@Component
+public class ClickRollupService {
+
+    // Arbitrary constant identifying the rollup's advisory lock
+    private static final long ADVISORY_LOCK_KEY = 0x636c69636b726f6cL;
+
+    private static final String UPSERT_ROLLUP =
+            "INSERT INTO click_daily_rollup (url_mapping_id, click_day, click_count) VALUES (?, ?, ?) " +
+            "ON CONFLICT (url_mapping_id, click_day) " +
+            "DO UPDATE SET click_count = click_daily_rollup.click_count + EXCLUDED.click_count";
+    private static final String REBUILD_DAY =
+            "INSERT INTO click_daily_rollup (url_mapping_id, click_day, click_count) " +
+            "SELECT url_mapping_id, CAST(click_date AS date), count(*) FROM click_events " +
+            "WHERE click_date >= ? AND click_date < ? GROUP BY url_mapping_id, CAST(click_date AS date) " +
+            "ON CONFLICT (url_mapping_id, click_day) DO UPDATE SET click_count = EXCLUDED.click_count";
+    private static final String MAPPING_DAYS =
+            "SELECT click_day, click_count FROM click_daily_rollup " +
+            "WHERE url_mapping_id = ? AND click_day BETWEEN ? AND ?";
+    private static final String MAPPING_RAW_DAYS =
+            "SELECT CAST(click_date AS date), count(*) FROM click_events " +
+            "WHERE url_mapping_id = ? AND click_date >= ? AND click_date <= ? GROUP BY CAST(click_date AS date)";
+    private static final String USER_RAW_DAYS =
+            "SELECT CAST(e.click_date AS date), count(*) FROM click_events e " +
+            "JOIN url_mapping m ON m.id = e.url_mapping_id " +
+            "WHERE m.user_id = ? AND m.deleted_at IS NULL AND e.click_date >= ? AND e.click_date <= ? " +
+            "GROUP BY CAST(e.click_date AS date)";
+    private static final String USER_DAYS =
+            "SELECT r.click_day, sum(r.click_count) FROM click_daily_rollup r " +
+            "JOIN url_mapping m ON m.id = r.url_mapping_id " +
+            "WHERE m.user_id = ? AND m.deleted_at IS NULL AND r.click_day BETWEEN ? AND ? GROUP BY r.click_day";
+    private static final String MAPPING_RAW_BUCKETS =
+            "SELECT date_trunc(?, click_date), count(*) FROM click_events " +
+            "WHERE url_mapping_id = ? AND click_date >= ? AND click_date <= ? GROUP BY 1";
+    private static final String USER_RAW_BUCKETS =
+            "SELECT date_trunc(?, e.click_date), count(*) FROM click_events e " +
+            "JOIN url_mapping m ON m.id = e.url_mapping_id " +
+            "WHERE m.user_id = ? AND m.deleted_at IS NULL AND e.click_date >= ? AND e.click_date <= ? GROUP BY 1";
+    private static final String USER_MAPPING_IDS = "SELECT id FROM url_mapping WHERE user_id = ? AND deleted_at IS NULL";
+    private static final String DELETE_MAPPING = "DELETE FROM click_daily_rollup WHERE url_mapping_id = ?";
+    private static final String NO_PAST_ROLLUPS = "SELECT NOT EXISTS (SELECT 1 FROM click_daily_rollup WHERE click_day < ?)";
+    private static final String FIRST_CLICK = "SELECT min(click_date) FROM click_events";
+
+    // A range ending at or after this time of day is treated as covering the whole day
+    private static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClickArchiveService clickArchive;
+    private final boolean forceBackfill;
+
+    public ClickRollupService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              ClickArchiveService clickArchive, AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clickArchive = clickArchive;
+        this.forceBackfill = appConfig.getClickRollup().isForceBackfill();
+    }
+
+    // Adds a batch of clicks, whose mappings the click writer has just checked are live, to the rollup; called
+    // inside the writer's transaction. The shared lock is held until that transaction commits, so a recount
+    // never runs between the raw inserts and the upsert.
+    void record(List<ClickRecord> batch) {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock_shared(?)", Object.class, ADVISORY_LOCK_KEY);
+        Map<Key, Long> counts = new HashMap<>();
+        for (ClickRecord clickRecord : batch) {
+            counts.merge(new Key(clickRecord.urlMappingId(), clickRecord.clickDate().toLocalDate()), 1L, Long::sum);
+        }
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP, counts.entrySet(), counts.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getKey().urlMappingId());
+            ps.setDate(2, Date.valueOf(entry.getKey().day()));
+            ps.setLong(3, entry.getValue());
+        });
+    }
+
+    // Clicks per day for one mapping in [start, end]; partial edge days are counted from raw events.
+    public Map<LocalDate, Long> countsByDay(long urlMappingId, LocalDateTime start, LocalDateTime end) {
+        Map<LocalDate, Long> counts = new TreeMap<>();
+        LocalDateTime archivedUntil = clickArchive.archivedUntil();
+        splitEdgeDays(start, end,
+                (first, last) -> jdbcTemplate.query(MAPPING_DAYS, collectInto(counts), urlMappingId,
+                        Date.valueOf(first), Date.valueOf(last)),
+                (from, to) -> addRaw(counts, archivedUntil, List.of(urlMappingId), MAPPING_RAW_DAYS, urlMappingId,
+                        from, to));
+        return counts;
+    }
+
+    // Clicks per day across all of a user's mappings in [start, end]; partial edge days are counted from
+    // raw events, reading the archive once for all of the user's mappings.
+    public Map<LocalDate, Long> countsByDayForUser(long userId, LocalDateTime start, LocalDateTime end) {
+        Map<LocalDate, Long> counts = new TreeMap<>();
+        LocalDateTime archivedUntil = clickArchive.archivedUntil();
+        List<Long> archivedIds = archivedMappingIds(userId, archivedUntil, start);
+        splitEdgeDays(start, end,
+                (first, last) -> jdbcTemplate.query(USER_DAYS, collectInto(counts), userId,
+                        Date.valueOf(first), Date.valueOf(last)),
+                (from, to) -> addRaw(counts, archivedUntil, archivedIds, USER_RAW_DAYS, userId, from, to));
+        return counts;
+    }
+
+    // Splits [start, end] into the whole days between its edges, passed to fullDays as [first, last], and
+    // the partial days at either edge, passed to partialDays as [from, to].
+    private static void splitEdgeDays(LocalDateTime start, LocalDateTime end,
+                                      BiConsumer<LocalDate, LocalDate> fullDays,
+                                      BiConsumer<LocalDateTime, LocalDateTime> partialDays) {
+        if (end.isBefore(start)) {
+            return;
+        }
+        LocalDate firstFullDay = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? start.toLocalDate() : start.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = end.toLocalTime().isBefore(END_OF_DAY)
+                ? end.toLocalDate().minusDays(1) : end.toLocalDate();
+
+        if (!firstFullDay.isAfter(lastFullDay)) {
+            fullDays.accept(firstFullDay, lastFullDay);
+            if (start.toLocalDate().isBefore(firstFullDay)) {
+                partialDays.accept(start, firstFullDay.atStartOfDay().minusNanos(1));
+            }
+            if (end.toLocalDate().isAfter(lastFullDay)) {
+                partialDays.accept(end.toLocalDate().atStartOfDay(), end);
+            }
+        } else {
+            // The range lies within one or two partial days
+            partialDays.accept(start, end);
+        }
+    }
+
+    // Clicks per day across all of a user's mappings for the whole days [startDate, endDate].
+    public Map<LocalDate, Long> totalsByUser(long userId, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, Long> totals = new TreeMap<>();
+        jdbcTemplate.query(USER_DAYS, collectInto(totals), userId, Date.valueOf(startDate), Date.valueOf(endDate));
+        return totals;
+    }
+
+    // Gap-filled, sorted click counts for one mapping over [start, end] at the given granularity.
+    // Day and coarser buckets are folded from daily rollups; minutes and hours are truncated in SQL.
+    public List<ClickBucketDTO> bucketsForMapping(long urlMappingId, LocalDateTime start, LocalDateTime end,
+                                                  ClickGranularity granularity) {
+        Map<LocalDateTime, Long> counts = new HashMap<>();
+        if (granularity == ClickGranularity.MINUTE || granularity == ClickGranularity.HOUR) {
+            LocalDateTime hotStart = readArchived(clickArchive.archivedUntil(), List.of(urlMappingId), start, end,
+                    click -> counts.merge(granularity.truncate(click), 1L, Long::sum));
+            if (!hotStart.isAfter(end)) {
+                jdbcTemplate.query(MAPPING_RAW_BUCKETS, collectBuckets(counts), granularity.sqlField(), urlMappingId,
+                        Timestamp.valueOf(hotStart), Timestamp.valueOf(end));
+            }
+        } else {
+            countsByDay(urlMappingId, start, end).forEach((day, count) ->
+                    counts.merge(granularity.truncate(day.atStartOfDay()), count, Long::sum));
+        }
+        return gapFill(counts, start, end, granularity);
+    }
+
+    // Gap-filled, sorted click counts across a user's mappings over [start, end] at the given granularity.
+    public List<ClickBucketDTO> bucketsForUser(long userId, LocalDateTime start, LocalDateTime end,
+                                               ClickGranularity granularity) {
+        Map<LocalDateTime, Long> counts = new HashMap<>();
+        if (granularity == ClickGranularity.MINUTE || granularity == ClickGranularity.HOUR) {
+            LocalDateTime archivedUntil = clickArchive.archivedUntil();
+            LocalDateTime hotStart = readArchived(archivedUntil, archivedMappingIds(userId, archivedUntil, start),
+                    start, end, click -> counts.merge(granularity.truncate(click), 1L, Long::sum));
+            if (!hotStart.isAfter(end)) {
+                jdbcTemplate.query(USER_RAW_BUCKETS, collectBuckets(counts), granularity.sqlField(), userId,
+                        Timestamp.valueOf(hotStart), Timestamp.valueOf(end));
+            }
+        } else {
+            countsByDayForUser(userId, start, end).forEach((day, count) ->
+                    counts.merge(granularity.truncate(day.atStartOfDay()), count, Long::sum));
+        }
+        return gapFill(counts, start, end, granularity);
+    }
+
+    private static List<ClickBucketDTO> gapFill(Map<LocalDateTime, Long> counts, LocalDateTime start,
+                                                LocalDateTime end, ClickGranularity granularity) {
+        List<ClickBucketDTO> buckets = new ArrayList<>();
+        LocalDateTime last = granularity.truncate(end);
+        for (LocalDateTime bucket = granularity.truncate(start); !bucket.isAfter(last); bucket = granularity.next(bucket)) {
+            buckets.add(new ClickBucketDTO(bucket, counts.getOrDefault(bucket, 0L)));
+        }
+        return buckets;
+    }
+
+    private static RowCallbackHandler collectBuckets(Map<LocalDateTime, Long> counts) {
+        return rs -> counts.merge(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2), Long::sum);
+    }
+
+    // Removes the rollup rows of a deleted mapping.
+    public void deleteFor(long urlMappingId) {
+        jdbcTemplate.update(DELETE_MAPPING, urlMappingId);
+    }
+
+    // Builds the rollup from click_events when it has no past days yet (first start after upgrading)
+    // or when forced; rows for the current day may already exist because the click writer is running.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfNeeded() {
+        if (forceBackfill || Boolean.TRUE.equals(
+                jdbcTemplate.queryForObject(NO_PAST_ROLLUPS, Boolean.class, Date.valueOf(LocalDate.now())))) {
+            Thread.ofVirtual().name("click-rollup-backfill").start(this::backfill);
+        }
+    }
+
+    // Recomputes every day up to and including today from click_events, one day per transaction so none
+    // grows large. Each recount takes the advisory lock exclusively: its cutoff is the moment it gets the
+    // lock, so it counts every batch committed before then (including clicks written on the upgrade day
+    // before the rollup existed) and batches committed after it add their own clicks on top.
+    public void backfill() {
+        Timestamp first = jdbcTemplate.queryForObject(FIRST_CLICK, Timestamp.class);
+        if (first == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        long started = System.nanoTime();
+        int days = 0;
+        try {
+            for (LocalDate day = first.toLocalDateTime().toLocalDate(); !day.isAfter(today); day = day.plusDays(1)) {
+                rebuildDay(day);
+                days++;
+            }
+            log.info("Rebuilt click rollups for {} days in {} ms", days, (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Click rollup backfill failed after {} days", days, e);
+        }
+    }
+
+    private void rebuildDay(LocalDate day) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(?)", Object.class, ADVISORY_LOCK_KEY);
+            jdbcTemplate.update(REBUILD_DAY, Timestamp.valueOf(day.atStartOfDay()),
+                    Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        });
+    }
+
+    // Counts [from, to] per day from the archive and click_events; rawDaysSql takes (key, from, to) and
+    // covers the same mappings as archivedIds.
+    private void addRaw(Map<LocalDate, Long> counts, LocalDateTime archivedUntil, List<Long> archivedIds,
+                        String rawDaysSql, long key, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime hotFrom = readArchived(archivedUntil, archivedIds, from, to,
+                click -> counts.merge(click.toLocalDate(), 1L, Long::sum));
+        if (!hotFrom.isAfter(to)) {
+            jdbcTemplate.query(rawDaysSql, collectInto(counts), key, Timestamp.valueOf(hotFrom), Timestamp.valueOf(to));
+        }
+    }
+
+    // The user's live mappings, looked up only if a range from start can reach into the archive.
+    private List<Long> archivedMappingIds(long userId, LocalDateTime archivedUntil, LocalDateTime start) {
+        if (archivedUntil == null || !start.isBefore(archivedUntil)) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(USER_MAPPING_IDS, Long.class, userId);
+    }
+
+    // Passes the archived clicks of the mappings in [from, to] to clicks and returns where the part still
+    // held in click_events begins. The caller reads the watermark once so both parts split at the same point.
+    private LocalDateTime readArchived(LocalDateTime archivedUntil, List<Long> urlMappingIds, LocalDateTime from,
+                                       LocalDateTime to, Consumer<LocalDateTime> clicks) {
+        if (archivedUntil == null || !from.isBefore(archivedUntil)) {
+            return from;
+        }
+        LocalDateTime archivedEnd = to.isBefore(archivedUntil) ? to : archivedUntil.minusNanos(1);
+        clickArchive.scan(urlMappingIds, from, archivedEnd, clicks);
+        return archivedUntil;
+    }
+
+    private static RowCallbackHandler collectInto(Map<LocalDate, Long> counts) {
+        return rs -> counts.merge(rs.getDate(1).toLocalDate(), rs.getLong(2), Long::sum);
+    }
+
+    private record Key(long urlMappingId, LocalDate day) {
+    }
+}
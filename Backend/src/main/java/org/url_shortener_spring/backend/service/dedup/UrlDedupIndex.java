@@ -0,0 +1,57 @@
+package org.url_shortener_spring.backend.service.dedup;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.time.LocalDateTime;
+
+// In-memory (user, URL digest) -> existing mapping index in front of the url_digest column.
+// A hit lets a re-submitted URL be answered without a query; entries for links deleted on another
+// node can be served until they expire, the same staleness bound as the resolution cache.
+@Component
+public class UrlDedupIndex {
+
+    private final Cache<Key, Entry> cache;
+    private final boolean enabledByDefault;
+
+    public UrlDedupIndex(AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.Dedup config = appConfig.getDedup();
+        this.enabledByDefault = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "url.dedup");
+    }
+
+    // Whether requests that do not say otherwise are deduplicated.
+    public boolean isEnabledByDefault() {
+        return enabledByDefault;
+    }
+
+    // Cached mapping of userId for a URL with this digest, or null.
+    public Entry get(long userId, long digest) {
+        return cache.getIfPresent(new Key(userId, digest));
+    }
+
+    public void put(long userId, long digest, Entry entry) {
+        cache.put(new Key(userId, digest), entry);
+    }
+
+    public void invalidate(long userId, long digest) {
+        cache.invalidate(new Key(userId, digest));
+    }
+
+    private record Key(long userId, long digest) {
+    }
+
+    // Existing mapping; canonicalUrl guards against digest collisions and clickCount is as of caching.
+    public record Entry(long id, String shortUrl, String originalUrl, String canonicalUrl,
+                        int clickCount, LocalDateTime createdDate) {
+    }
+}
@@ -0,0 +1,51 @@
+package org.url_shortener_spring.backend.service.live;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Click counts of one link for the last minute (per second) and the last hour (per minute).
+// Each ring slot packs (time stamp << 32 | count) into one long, so recording a click is a single CAS
+// that either increments the slot or, when the slot still holds an older period, restarts it at 1.
+// Readers see a count only if the slot's stamp matches the period asked for.
+final class ClickTimeSeries {
+
+    static final int SECONDS = 60;
+    static final int MINUTES = 60;
+
+    private static final long COUNT_MASK = 0xffffffffL;
+
+    private final AtomicLongArray seconds = new AtomicLongArray(SECONDS);
+    private final AtomicLongArray minutes = new AtomicLongArray(MINUTES);
+
+    // Counts one click at the given epoch second.
+    void record(long epochSecond) {
+        increment(seconds, epochSecond);
+        increment(minutes, epochSecond / 60);
+    }
+
+    // Clicks in the given epoch second, if it is still within the ring.
+    long secondCount(long epochSecond) {
+        return read(seconds, epochSecond);
+    }
+
+    // Clicks in the given epoch minute, if it is still within the ring.
+    long minuteCount(long epochMinute) {
+        return read(minutes, epochMinute);
+    }
+
+    private static void increment(AtomicLongArray ring, long period) {
+        int slot = (int) Math.floorMod(period, (long) ring.length());
+        long stamp = period & COUNT_MASK;
+        while (true) {
+            long current = ring.get(slot);
+            long next = (current >>> 32) == stamp ? current + 1 : (stamp << 32) | 1;
+            if (ring.compareAndSet(slot, current, next)) {
+                return;
+            }
+        }
+    }
+
+    private static long read(AtomicLongArray ring, long period) {
+        long value = ring.get((int) Math.floorMod(period, (long) ring.length()));
+        return (value >>> 32) == (period & COUNT_MASK) ? value & COUNT_MASK : 0;
+    }
+}
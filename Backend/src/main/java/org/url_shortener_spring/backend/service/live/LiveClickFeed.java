@@ -0,0 +1,219 @@
+package org.url_shortener_spring.backend.service.live;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Live click view for dashboards.
+// The redirect path records every click into the link's ClickTimeSeries without locking. Series live in
+// a bounded Caffeine cache and are evicted after a period without clicks or viewers, so memory does not
+// grow with the number of links. Dashboards subscribe over Server-Sent Events: they get the last minute
+// and hour as a "snapshot" event, then one "delta" event per second in which the link had clicks. The
+// snapshot ends at the last second already pushed, so every second reaches a subscriber exactly once.
+// Events are only queued on the pushing thread; each subscriber has its own sender thread writing to its
+// connection, so a slow client delays nobody else, and one whose queue fills up is dropped.
+@Slf4j
+@Component
+public class LiveClickFeed {
+
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private final Cache<Long, ClickTimeSeries> series;
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final long emitterTimeoutMillis;
+    private final int maxQueuedEvents;
+
+    // Held by push() and while a subscriber is registered and queued its snapshot, so a new subscriber
+    // sees each second either in the snapshot or in a delta, never both. Only queueing happens under it.
+    private final ReentrantLock pushLock = new ReentrantLock();
+
+    // Last second pushed to subscribers; guarded by pushLock
+    private long lastPushedSecond = currentSecond() - 1;
+
+    public LiveClickFeed(AppConfig appConfig, MeterRegistry meterRegistry) {
+        AppConfig.LiveClicks config = appConfig.getLiveClicks();
+        this.series = Caffeine.newBuilder()
+                .maximumSize(config.getMaxLinks())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
+        this.emitterTimeoutMillis = config.getEmitterTimeout().toMillis();
+        this.maxQueuedEvents = Math.max(1, config.getMaxQueuedEvents());
+
+        Gauge.builder("clicks.live.links", series, cache -> cache.estimatedSize())
+                .description("Links with an in-memory live click series")
+                .register(meterRegistry);
+        Gauge.builder("clicks.live.subscribers", subscribers, map -> map.values().stream().mapToInt(List::size).sum())
+                .description("Open live click SSE connections")
+                .register(meterRegistry);
+    }
+
+    // Records a click on the redirect path.
+    public void record(long urlMappingId) {
+        series.get(urlMappingId, id -> new ClickTimeSeries()).record(currentSecond());
+    }
+
+    // Opens an SSE stream for a link and sends it the current snapshot.
+    public SseEmitter subscribe(long urlMappingId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(urlMappingId, emitter, maxQueuedEvents);
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        ClickTimeSeries clickSeries = series.get(urlMappingId, id -> new ClickTimeSeries());
+        pushLock.lock();
+        try {
+            // Seconds after this arrive as deltas from the next push
+            long end = lastPushedSecond;
+            long[] perSecond = new long[ClickTimeSeries.SECONDS];
+            for (int i = 0; i < perSecond.length; i++) {
+                perSecond[i] = clickSeries.secondCount(end - perSecond.length + 1 + i);
+            }
+            long[] perMinute = new long[ClickTimeSeries.MINUTES];
+            for (int i = 0; i < perMinute.length - 1; i++) {
+                perMinute[i] = clickSeries.minuteCount(end / 60 - perMinute.length + 1 + i);
+            }
+            // The current minute only up to the end second, from the per-second counts
+            for (long second = end - end % 60; second <= end; second++) {
+                perMinute[perMinute.length - 1] += clickSeries.secondCount(second);
+            }
+            // Queued before the subscriber is visible to push(), so it is the first event sent
+            subscriber.offer(SseEmitter.event().name("snapshot").data(new Snapshot(end, perSecond, perMinute)));
+            subscribers.computeIfAbsent(urlMappingId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        } finally {
+            pushLock.unlock();
+        }
+        subscriber.start();
+        return emitter;
+    }
+
+    // Pushes the clicks of every second completed since the last push to the link's subscribers.
+    @Scheduled(fixedRate = 1000)
+    public void push() {
+        pushLock.lock();
+        try {
+            pushCompleted();
+        } finally {
+            pushLock.unlock();
+        }
+    }
+
+    private void pushCompleted() {
+        long completed = currentSecond() - 1;
+        long from = Math.max(lastPushedSecond + 1, completed - ClickTimeSeries.SECONDS + 1);
+        boolean heartbeat = completed / HEARTBEAT_SECONDS != lastPushedSecond / HEARTBEAT_SECONDS;
+        lastPushedSecond = completed;
+
+        subscribers.forEach((urlMappingId, linkSubscribers) -> {
+            // Reading the series through the cache keeps it alive while someone is watching
+            ClickTimeSeries clickSeries = series.getIfPresent(urlMappingId);
+            for (long second = from; clickSeries != null && second <= completed; second++) {
+                long count = clickSeries.secondCount(second);
+                if (count > 0) {
+                    Delta delta = new Delta(second, count);
+                    for (Subscriber subscriber : linkSubscribers) {
+                        queue(subscriber, SseEmitter.event().name("delta").data(delta));
+                    }
+                }
+            }
+            if (heartbeat) {
+                for (Subscriber subscriber : linkSubscribers) {
+                    queue(subscriber, SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        });
+    }
+
+    private void queue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.offer(event)) {
+            log.debug("Dropping live click subscriber for mapping {}: it is not reading its events",
+                    subscriber.urlMappingId);
+            unsubscribe(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.urlMappingId, (id, linkSubscribers) -> {
+            linkSubscribers.remove(subscriber);
+            return linkSubscribers.isEmpty() ? null : linkSubscribers;
+        });
+        subscriber.stop();
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    // One SSE connection: a bounded queue of events and the virtual thread writing them to the connection.
+    private final class Subscriber {
+
+        private final long urlMappingId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> events;
+        private final Thread sender;
+        private volatile boolean stopped;
+
+        Subscriber(long urlMappingId, SseEmitter emitter, int capacity) {
+            this.urlMappingId = urlMappingId;
+            this.emitter = emitter;
+            this.events = new ArrayBlockingQueue<>(capacity);
+            this.sender = Thread.ofVirtual().name("live-clicks-" + urlMappingId).unstarted(this::send);
+        }
+
+        boolean offer(SseEmitter.SseEventBuilder event) {
+            return events.offer(event);
+        }
+
+        void start() {
+            sender.start();
+        }
+
+        void stop() {
+            stopped = true;
+            sender.interrupt();
+        }
+
+        private void send() {
+            try {
+                while (!stopped) {
+                    emitter.send(events.take());
+                }
+            } catch (InterruptedException e) {
+                // Unsubscribed while waiting for an event
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping live click subscriber for mapping {}", urlMappingId, e);
+                unsubscribe(this);
+                return;
+            }
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // The connection already completed or timed out
+            }
+        }
+    }
+
+    // Counts for the 60 seconds and 60 minutes ending at second "now", the last pushed one (oldest first).
+    public record Snapshot(long now, long[] perSecond, long[] perMinute) {
+    }
+
+    // Clicks in one completed epoch second.
+    public record Delta(long second, long count) {
+    }
+}
@@ -0,0 +1,98 @@
+package org.url_shortener_spring.backend.service.snapshot;
+
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only, memory-mapped view of a mapping snapshot file.
+// Layout: a fixed header, then entryCount index entries sorted by packed short code
+// (code, id, blob offset, length), then a blob of UTF-8 original URLs. Lookups binary-search the
+// mapped index with absolute reads, so they are thread-safe and keep the data off the Java heap.
+final class MappingSnapshot {
+
+    static final int MAGIC = 0x55534E50; // "USNP"
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 32;
+    static final int ENTRY_BYTES = 28;
+
+    private final MappedByteBuffer index;
+    private final MappedByteBuffer blob;
+    private final int entryCount;
+    private final long createdAt;
+    private final long maxId;
+
+    private MappingSnapshot(MappedByteBuffer index, MappedByteBuffer blob, int entryCount, long createdAt, long maxId) {
+        this.index = index;
+        this.blob = blob;
+        this.entryCount = entryCount;
+        this.createdAt = createdAt;
+        this.maxId = maxId;
+    }
+
+    // Maps an existing snapshot file; the mapping stays valid after the channel is closed.
+    static MappingSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Snapshot " + path + " has an unknown format");
+            }
+            int entryCount = header.getInt(8);
+            long createdAt = header.getLong(12);
+            long maxId = header.getLong(20);
+
+            long indexBytes = (long) entryCount * ENTRY_BYTES;
+            long blobStart = HEADER_BYTES + indexBytes;
+            if (blobStart > size) {
+                throw new IOException("Snapshot " + path + " is truncated");
+            }
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, indexBytes);
+            MappedByteBuffer blob = channel.map(FileChannel.MapMode.READ_ONLY, blobStart, size - blobStart);
+            return new MappingSnapshot(index, blob, entryCount, createdAt, maxId);
+        }
+    }
+
+    // Binary-searches the index; returns null if the code is not in the snapshot.
+    ResolvedUrl lookup(long shortCode) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int position = mid * ENTRY_BYTES;
+            long key = index.getLong(position);
+            if (key < shortCode) {
+                low = mid + 1;
+            } else if (key > shortCode) {
+                high = mid - 1;
+            } else {
+                long id = index.getLong(position + 8);
+                int offset = (int) index.getLong(position + 16);
+                byte[] url = new byte[index.getInt(position + 24)];
+                blob.get(offset, url);
+                return new ResolvedUrl(id, shortCode, new String(url, StandardCharsets.UTF_8));
+            }
+        }
+        return null;
+    }
+
+    int entryCount() {
+        return entryCount;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    long maxId() {
+        return maxId;
+    }
+}
@@ -0,0 +1,351 @@
+package org.url_shortener_spring.backend.service.snapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.url_shortener_spring.backend.config.AppConfig;
+import org.url_shortener_spring.backend.service.ShortCodeCodec;
+import org.url_shortener_spring.backend.service.cache.ResolvedUrl;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+// Off-heap lookup tier between the resolution cache and the database.
+// Each node writes a sorted, memory-mapped snapshot of url_mapping to local disk at boot and then
+// periodically, and maps the latest one at boot, so a restarted node resolves its hot set within
+// milliseconds instead of sending a burst of findByShortCode queries. Creates made on this node are
+// kept as in-memory deltas on top of the snapshot until the next snapshot includes them. Deletes are
+// read back from the database: deleted links keep their tombstoned row for at least max-age (see
+// LinkPurger), and every poll layers the tombstones set since the snapshot was written over it, so a
+// snapshot is only consulted once those deletes are known. A snapshot older than max-age is ignored.
+// Codes missing from the snapshot fall through to the database. The polled deletes are also passed to
+// tombstone listeners (the resolution cache), so a delete on any node stops redirects on every node
+// within one poll interval, whether or not the snapshot is enabled.
+@Slf4j
+@Component
+public class MappingSnapshotStore {
+
+    // Rows whose short_code has not been backfilled yet stay on the database path
+    private static final String STREAM_MAPPINGS =
+            "SELECT id, short_code, original_url FROM url_mapping WHERE short_code IS NOT NULL AND deleted_at IS NULL ORDER BY short_code";
+    private static final String SELECT_TOMBSTONES_SINCE =
+            "SELECT short_code, short_url FROM url_mapping WHERE deleted_at IS NOT NULL AND deleted_at >= ?";
+
+    // Polls re-read this far back, covering deletes that commit with a deleted_at before the previous poll
+    private static final Duration TOMBSTONE_OVERLAP = Duration.ofMinutes(1);
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppConfig.Snapshot config;
+    private final Path path;
+
+    // Deltas recorded on this node since the snapshot they are layered on; a null URL is a tombstone
+    private final ConcurrentHashMap<Long, Delta> deltas = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Told about every code deleted on any node
+    private final List<LongConsumer> tombstoneListeners = new CopyOnWriteArrayList<>();
+
+    // Serializes snapshot writes; a ReentrantLock so file and JDBC I/O never pin a virtual thread
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile MappingSnapshot snapshot;
+
+    // Deletes are read from here on; the snapshot is not consulted until the first poll has succeeded
+    private volatile LocalDateTime tombstonesSince = LocalDateTime.now().minus(TOMBSTONE_OVERLAP);
+    private volatile boolean tombstonesSynced;
+
+    public MappingSnapshotStore(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                AppConfig appConfig, MeterRegistry meterRegistry) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(10_000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.config = appConfig.getSnapshot();
+        this.path = Paths.get(config.getPath());
+
+        this.hits = Counter.builder("snapshot.lookup.hit")
+                .description("Codes resolved from the mapped snapshot or its deltas")
+                .register(meterRegistry);
+        this.misses = Counter.builder("snapshot.lookup.miss")
+                .description("Codes that fell through the snapshot to the database")
+                .register(meterRegistry);
+        Gauge.builder("snapshot.entries", this, store -> store.snapshot == null ? 0 : store.snapshot.entryCount())
+                .description("Entries in the mapped snapshot")
+                .register(meterRegistry);
+        Gauge.builder("snapshot.deltas", deltas, ConcurrentHashMap::size)
+                .description("Creates and deletes layered on top of the snapshot")
+                .register(meterRegistry);
+    }
+
+    // Maps the snapshot left by a previous run, if any.
+    @PostConstruct
+    public void load() {
+        if (!config.isEnabled() || !Files.exists(path)) {
+            return;
+        }
+        try {
+            MappingSnapshot loaded = MappingSnapshot.open(path);
+            if (isExpired(loaded)) {
+                log.info("Ignoring snapshot {} written at {}, older than {}", path,
+                        Instant.ofEpochMilli(loaded.createdAt()), config.getMaxAge());
+                return;
+            }
+            snapshot = loaded;
+            tombstonesSince = LocalDateTime.ofInstant(Instant.ofEpochMilli(loaded.createdAt()), ZoneId.systemDefault())
+                    .minus(TOMBSTONE_OVERLAP);
+            log.info("Mapped snapshot {} with {} entries", path, snapshot.entryCount());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable snapshot {}", path, e);
+        }
+    }
+
+    // Resolves a code from the deltas or the mapped snapshot; null means "ask the database".
+    public ResolvedUrl lookup(long shortCode) {
+        if (!config.isEnabled()) {
+            return null;
+        }
+        Delta delta = deltas.get(shortCode);
+        ResolvedUrl resolvedUrl;
+        if (delta != null) {
+            resolvedUrl = delta.resolvedUrl();
+        } else {
+            MappingSnapshot current = snapshot;
+            resolvedUrl = current == null || !tombstonesSynced || isExpired(current) ? null : current.lookup(shortCode);
+        }
+        if (resolvedUrl != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return resolvedUrl;
+    }
+
+    // Layers a mapping created on this node over the snapshot.
+    public void recordCreate(ResolvedUrl resolvedUrl) {
+        if (config.isEnabled()) {
+            deltas.put(resolvedUrl.shortCode(), new Delta(sequence.incrementAndGet(), resolvedUrl));
+        }
+    }
+
+    // Hides a mapping deleted on this node until the next snapshot drops it.
+    public void recordDelete(long shortCode) {
+        if (config.isEnabled()) {
+            deltas.put(shortCode, new Delta(sequence.incrementAndGet(), null));
+        }
+    }
+
+    // Registers a listener for codes deleted on any node, called from the tombstone poll.
+    public void onTombstone(LongConsumer listener) {
+        tombstoneListeners.add(listener);
+    }
+
+    // Layers deletes committed on any node since the last poll over the snapshot and passes them to the
+    // tombstone listeners; codes inside the overlap are passed again, so listeners must be idempotent.
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.snapshot.tombstone-poll-interval-ms:5000}")
+    public void pollTombstones() {
+        LocalDateTime pollStarted = LocalDateTime.now();
+        try {
+            List<Long> codes = streamingJdbcTemplate.query(SELECT_TOMBSTONES_SINCE, (rs, rowNum) -> {
+                long shortCode = rs.getLong(1);
+                if (!rs.wasNull()) {
+                    return shortCode;
+                }
+                String shortUrl = rs.getString(2);
+                return shortUrl == null ? ShortCodeCodec.INVALID : ShortCodeCodec.pack(shortUrl);
+            }, Timestamp.valueOf(tombstonesSince));
+            for (long shortCode : codes) {
+                if (ShortCodeCodec.isValid(shortCode)) {
+                    recordDelete(shortCode);
+                    tombstoneListeners.forEach(listener -> listener.accept(shortCode));
+                }
+            }
+            tombstonesSince = pollStarted.minus(TOMBSTONE_OVERLAP);
+            tombstonesSynced = true;
+        } catch (RuntimeException e) {
+            log.warn("Could not read deleted links; snapshot lookups wait for the next poll", e);
+        }
+    }
+
+    // Replaces whatever snapshot was left on disk as soon as the application is up.
+    @EventListener(ApplicationReadyEvent.class)
+    public void writeAtBoot() {
+        if (config.isEnabled()) {
+            Thread.ofVirtual().name("snapshot-writer").start(this::write);
+        }
+    }
+
+    // Writes a fresh snapshot, maps it, and discards the deltas it now contains.
+    @Scheduled(initialDelayString = "${app.snapshot.write-interval-ms:900000}",
+            fixedDelayString = "${app.snapshot.write-interval-ms:900000}")
+    public void write() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            writeSnapshot();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void writeSnapshot() {
+        // Deltas recorded up to here were committed before the export query starts, so it sees them
+        long startSequence = sequence.get();
+        long started = System.nanoTime();
+        Path indexFile = null;
+        Path blobFile = null;
+        Path snapshotFile = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            indexFile = Files.createTempFile(path.toAbsolutePath().getParent(), "index", ".tmp");
+            blobFile = Files.createTempFile(path.toAbsolutePath().getParent(), "blob", ".tmp");
+
+            SnapshotWriter writer;
+            try (DataOutputStream index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)));
+                 DataOutputStream blob = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(blobFile)))) {
+                writer = new SnapshotWriter(index, blob);
+                readOnlyTransaction.executeWithoutResult(status ->
+                        streamingJdbcTemplate.query(STREAM_MAPPINGS, writer));
+            }
+            if (writer.blobBytes > Integer.MAX_VALUE || (long) writer.entryCount * MappingSnapshot.ENTRY_BYTES > Integer.MAX_VALUE) {
+                log.warn("Mapping table too large for a single-mapping snapshot; skipping");
+                return;
+            }
+
+            try (FileChannel out = FileChannel.open(snapshotFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 FileChannel indexIn = FileChannel.open(indexFile, StandardOpenOption.READ);
+                 FileChannel blobIn = FileChannel.open(blobFile, StandardOpenOption.READ)) {
+                ByteBuffer header = ByteBuffer.allocate(MappingSnapshot.HEADER_BYTES)
+                        .putInt(MappingSnapshot.MAGIC)
+                        .putInt(MappingSnapshot.VERSION)
+                        .putInt(writer.entryCount)
+                        .putLong(System.currentTimeMillis())
+                        .putLong(writer.maxId);
+                header.clear();
+                out.write(header);
+                transferAll(indexIn, out);
+                transferAll(blobIn, out);
+                out.force(true);
+            }
+            Files.move(snapshotFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            snapshot = MappingSnapshot.open(path);
+            deltas.values().removeIf(delta -> delta.sequence() <= startSequence);
+            log.info("Wrote snapshot {} with {} entries in {} ms", path, writer.entryCount,
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write mapping snapshot", e);
+        } finally {
+            deleteQuietly(indexFile);
+            deleteQuietly(blobFile);
+            deleteQuietly(snapshotFile);
+        }
+    }
+
+    private boolean isExpired(MappingSnapshot candidate) {
+        return System.currentTimeMillis() - candidate.createdAt() > config.getMaxAge().toMillis();
+    }
+
+    private static void transferAll(FileChannel in, FileChannel out) throws IOException {
+        long position = 0;
+        long size = in.size();
+        while (position < size) {
+            position += in.transferTo(position, size - position, out);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("Could not delete {}", file, e);
+        }
+    }
+
+    // A create (resolvedUrl set) or delete (resolvedUrl null) layered over the snapshot.
+    private record Delta(long sequence, ResolvedUrl resolvedUrl) {
+    }
+
+    // Streams rows in key order into the index and blob temp files.
+    private static final class SnapshotWriter implements RowCallbackHandler {
+
+        private final DataOutputStream index;
+        private final DataOutputStream blob;
+        private long lastKey = Long.MIN_VALUE;
+        private long blobBytes;
+        private int entryCount;
+        private long maxId;
+
+        private SnapshotWriter(DataOutputStream index, DataOutputStream blob) {
+            this.index = index;
+            this.blob = blob;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            long key = rs.getLong(2);
+            String originalUrl = rs.getString(3);
+            // Skip codes the codec could not pack and duplicate codes
+            if (key == ShortCodeCodec.INVALID || key == lastKey || originalUrl == null) {
+                return;
+            }
+            byte[] url = originalUrl.getBytes(StandardCharsets.UTF_8);
+            try {
+                index.writeLong(key);
+                index.writeLong(id);
+                index.writeLong(blobBytes);
+                index.writeInt(url.length);
+                blob.write(url);
+            } catch (IOException e) {
+                throw new SQLException("Failed to write snapshot entry", e);
+            }
+            lastKey = key;
+            blobBytes += url.length;
+            entryCount++;
+            maxId = Math.max(maxId, id);
+        }
+    }
+}
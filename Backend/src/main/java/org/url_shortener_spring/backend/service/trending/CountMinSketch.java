@@ -0,0 +1,70 @@
+package org.url_shortener_spring.backend.service.trending;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Count-Min Sketch over link ids: depth rows of width counters, each row indexed by its own hash.
+// An estimate never undercounts and overcounts by at most epsilon * total with probability 1 - delta,
+// for width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)). Updates are lock-free.
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counters;
+    private final LongAdder total = new LongAdder();
+
+    CountMinSketch(double epsilon, double delta) {
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    // Adds one occurrence and returns the new estimate.
+    long add(long item) {
+        total.increment();
+        long h1 = mix(item);
+        long h2 = mix(h1) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + (int) Long.remainderUnsigned(h1 + row * h2, width);
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        return estimate;
+    }
+
+    long estimate(long item) {
+        long h1 = mix(item);
+        long h2 = mix(h1) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + (int) Long.remainderUnsigned(h1 + row * h2, width)));
+        }
+        return estimate;
+    }
+
+    // Number of occurrences added since the last clear.
+    long total() {
+        return total.sum();
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        total.reset();
+    }
+
+    long memoryBytes() {
+        return (long) counters.length() * Long.BYTES;
+    }
+
+    // MurmurHash3 64-bit finalizer.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
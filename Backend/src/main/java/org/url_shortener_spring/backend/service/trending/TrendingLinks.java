@@ -0,0 +1,235 @@
+package org.url_shortener_spring.backend.service.trending;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Streaming heavy-hitter detection over the last minute, 15 minutes and hour.
+// Each window is a ring of time slices; every slice has a Count-Min Sketch and a bounded set of top
+// candidates, so memory is fixed by the configured error bounds and top-K size no matter how many
+// links exist. A click adds to the current slice of every window; a window's ranking sums the slice
+// sketches for the union of the slices' candidates. Slices are cleared by a scheduler just before
+// they come round again, so the redirect path never resets anything.
+@Component
+public class TrendingLinks {
+
+    // Sliding window with its slice length and slice count
+    public enum Window {
+        ONE_MINUTE("1m", 10, 6),
+        FIFTEEN_MINUTES("15m", 60, 15),
+        ONE_HOUR("1h", 300, 12);
+
+        private final String label;
+        private final long sliceSeconds;
+        private final int slices;
+
+        Window(String label, long sliceSeconds, int slices) {
+            this.label = label;
+            this.sliceSeconds = sliceSeconds;
+            this.slices = slices;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        // Window for a label such as "15m", or null.
+        public static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equals(label)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Map<Window, Slice[]> rings = new EnumMap<>(Window.class);
+    private final double epsilon;
+    private final int candidateCapacity;
+
+    // System.currentTimeMillis outside tests
+    private final LongSupplier millisClock;
+
+    @Autowired
+    public TrendingLinks(AppConfig appConfig, MeterRegistry meterRegistry) {
+        this(appConfig, meterRegistry, System::currentTimeMillis);
+    }
+
+    TrendingLinks(AppConfig appConfig, MeterRegistry meterRegistry, LongSupplier millisClock) {
+        this.millisClock = millisClock;
+        AppConfig.Trending config = appConfig.getTrending();
+        this.epsilon = config.getEpsilon();
+        this.candidateCapacity = config.getTopK() * 2;
+        for (Window window : Window.values()) {
+            // One spare slice, so preparing the next period never clears a slice the window still covers
+            Slice[] ring = new Slice[window.slices + 1];
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new Slice(new CountMinSketch(config.getEpsilon(), config.getDelta()));
+            }
+            rings.put(window, ring);
+        }
+        rotate();
+
+        Gauge.builder("trending.memory.bytes", this, TrendingLinks::memoryBytes)
+                .description("Heap used by the trending Count-Min Sketches")
+                .register(meterRegistry);
+    }
+
+    // Counts a click on the redirect path.
+    public void record(long urlMappingId) {
+        long now = currentSecond();
+        for (Window window : Window.values()) {
+            long period = now / window.sliceSeconds;
+            Slice[] ring = rings.get(window);
+            Slice slice = ring[(int) (period % ring.length)];
+            // A slice the scheduler has not prepared yet still holds an old period; skip rather than corrupt it
+            if (slice.period == period) {
+                slice.offer(urlMappingId, slice.sketch.add(urlMappingId));
+            }
+        }
+    }
+
+    // Clears and stamps the current and next slice of every window before clicks reach them.
+    @Scheduled(fixedRate = 1000)
+    public void rotate() {
+        long now = currentSecond();
+        for (Window window : Window.values()) {
+            Slice[] ring = rings.get(window);
+            long period = now / window.sliceSeconds;
+            for (long p = period; p <= period + 1; p++) {
+                Slice slice = ring[(int) (p % ring.length)];
+                if (slice.period != p) {
+                    slice.reset(p);
+                }
+            }
+        }
+    }
+
+    // Top links of a window, with the window's click total and the sketch's error bound.
+    public Ranking top(Window window, int limit) {
+        long period = currentSecond() / window.sliceSeconds;
+        List<Slice> live = new ArrayList<>(window.slices);
+        for (Slice slice : rings.get(window)) {
+            if (slice.period > period - window.slices && slice.period <= period) {
+                live.add(slice);
+            }
+        }
+
+        Set<Long> candidates = new HashSet<>();
+        long total = 0;
+        for (Slice slice : live) {
+            candidates.addAll(slice.candidateIds());
+            total += slice.sketch.total();
+        }
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        for (long urlMappingId : candidates) {
+            long estimate = 0;
+            for (Slice slice : live) {
+                estimate += slice.sketch.estimate(urlMappingId);
+            }
+            entries.add(new Entry(urlMappingId, estimate));
+        }
+        entries.sort(Comparator.comparingLong(Entry::estimatedClicks).reversed());
+        return new Ranking(window, total, (long) Math.ceil(epsilon * total),
+                List.copyOf(entries.subList(0, Math.min(limit, entries.size()))));
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Slice[] ring : rings.values()) {
+            for (Slice slice : ring) {
+                bytes += slice.sketch.memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private long currentSecond() {
+        return millisClock.getAsLong() / 1000;
+    }
+
+    // One time slice: its sketch plus the ids with the highest estimates seen in it.
+    private final class Slice {
+
+        private final CountMinSketch sketch;
+        private final Map<Long, Long> candidates = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        // Published under the lock for the unlocked pre-check in offer
+        private volatile boolean full;
+        private volatile long floor;
+
+        private volatile long period = -1;
+
+        private Slice(CountMinSketch sketch) {
+            this.sketch = sketch;
+        }
+
+        // Keeps the id if it ranks among the slice's top candidates. Uses tryLock so a contended
+        // redirect skips the update; a genuinely hot link is offered again on its next click.
+        void offer(long urlMappingId, long estimate) {
+            // Unlocked pre-check: a stale flag or floor only costs an extra tryLock or one skipped update
+            if (full && estimate <= floor) {
+                return;
+            }
+            if (!lock.tryLock()) {
+                return;
+            }
+            try {
+                candidates.put(urlMappingId, estimate);
+                if (candidates.size() > candidateCapacity) {
+                    Long weakest = null;
+                    long weakestEstimate = Long.MAX_VALUE;
+                    for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+                        if (candidate.getValue() < weakestEstimate) {
+                            weakest = candidate.getKey();
+                            weakestEstimate = candidate.getValue();
+                        }
+                    }
+                    candidates.remove(weakest);
+                    floor = candidates.values().stream().mapToLong(Long::longValue).min().orElse(0);
+                }
+                full = candidates.size() >= candidateCapacity;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        List<Long> candidateIds() {
+            lock.lock();
+            try {
+                return new ArrayList<>(candidates.keySet());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void reset(long newPeriod) {
+            lock.lock();
+            try {
+                sketch.clear();
+                candidates.clear();
+                full = false;
+                floor = 0;
+                period = newPeriod;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // A link and its estimated clicks in the window.
+    public record Entry(long urlMappingId, long estimatedClicks) {
+    }
+
+    // Ranking of a window; estimates exceed true counts by at most errorBound with the configured confidence.
+    public record Ranking(Window window, long totalClicks, long errorBound, List<Entry> entries) {
+    }
+}
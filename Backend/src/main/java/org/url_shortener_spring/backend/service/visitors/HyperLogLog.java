@@ -0,0 +1,122 @@
+package org.url_shortener_spring.backend.service.visitors;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// HyperLogLog sketch with 2^12 six-bit registers (about 1.6% standard error).
+// Registers are kept one per byte, eight to a long, and raised with a CAS loop, so concurrent adds from
+// the redirect path never lock. Sketches merge by taking the register-wise maximum, which makes a
+// sketch of several days or several links exactly the sketch of their combined visitors.
+// The serialized form is sparse ((index, value) pairs) while few registers are set and dense otherwise.
+final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+
+    private static final byte FORMAT_SPARSE = 1;
+    private static final byte FORMAT_DENSE = 2;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final AtomicLongArray words = new AtomicLongArray(REGISTERS / 8);
+
+    // Adds a 64-bit hash of a visitor.
+    void add(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        raise(index, rank);
+    }
+
+    // Folds another sketch into this one.
+    void merge(HyperLogLog other) {
+        for (int index = 0; index < REGISTERS; index++) {
+            int value = other.register(index);
+            if (value > 0) {
+                raise(index, value);
+            }
+        }
+    }
+
+    // Estimated number of distinct hashes added.
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (int index = 0; index < REGISTERS; index++) {
+            int value = register(index);
+            sum += 1.0 / (1L << value);
+            if (value == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    byte[] toBytes() {
+        int nonZero = 0;
+        for (int index = 0; index < REGISTERS; index++) {
+            if (register(index) > 0) {
+                nonZero++;
+            }
+        }
+        if (1 + 2 + nonZero * 3 < 1 + REGISTERS) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + 2 + nonZero * 3).put(FORMAT_SPARSE).putShort((short) nonZero);
+            for (int index = 0; index < REGISTERS; index++) {
+                int value = register(index);
+                if (value > 0) {
+                    buffer.putShort((short) index).put((byte) value);
+                }
+            }
+            return buffer.array();
+        }
+        byte[] bytes = new byte[1 + REGISTERS];
+        bytes[0] = FORMAT_DENSE;
+        for (int index = 0; index < REGISTERS; index++) {
+            bytes[1 + index] = (byte) register(index);
+        }
+        return bytes;
+    }
+
+    static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog sketch = new HyperLogLog();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        if (format == FORMAT_SPARSE) {
+            int count = Short.toUnsignedInt(buffer.getShort());
+            for (int i = 0; i < count; i++) {
+                int index = Short.toUnsignedInt(buffer.getShort());
+                sketch.raise(index, buffer.get());
+            }
+        } else if (format == FORMAT_DENSE) {
+            for (int index = 0; index < REGISTERS; index++) {
+                sketch.raise(index, buffer.get());
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown sketch format " + format);
+        }
+        return sketch;
+    }
+
+    private int register(int index) {
+        return (int) (words.get(index >>> 3) >>> ((index & 7) << 3)) & 0xff;
+    }
+
+    // Sets the register to value if that is higher than its current value.
+    private void raise(int index, int value) {
+        int word = index >>> 3;
+        int shift = (index & 7) << 3;
+        while (true) {
+            long current = words.get(word);
+            if (((current >>> shift) & 0xff) >= value) {
+                return;
+            }
+            long next = (current & ~(0xffL << shift)) | ((long) value << shift);
+            if (words.compareAndSet(word, current, next)) {
+                return;
+            }
+        }
+    }
+}
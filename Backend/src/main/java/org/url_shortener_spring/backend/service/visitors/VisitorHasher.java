@@ -0,0 +1,80 @@
+package org.url_shortener_spring.backend.service.visitors;
+
+import org.springframework.stereotype.Component;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+// Turns a visitor's IP address and User-Agent into an anonymous 64-bit hash for the visitor sketches.
+// The redirect path hashes with the secret only; forDay() then salts that hash with the salt period of
+// the sketch day, so the same visitor hashes identically on every node within a period but cannot be
+// linked across periods, and no raw IP is ever stored. Periods are whole runs of days counted from the
+// epoch in the same zone as the sketch days, so a period boundary always falls between two sketch days.
+@Component
+public class VisitorHasher {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Formerly committed as the default secret; public, so it gives no privacy
+    private static final long PUBLISHED_SAMPLE_SECRET = 5126683215376190577L;
+
+    private final long secret;
+    private final long rotationDays;
+
+    // The clock and zone both the sketch day and its salt period come from
+    private final Clock clock = Clock.systemDefaultZone();
+
+    public VisitorHasher(AppConfig appConfig) {
+        AppConfig.Visitors config = appConfig.getVisitors();
+        this.secret = config.getSaltSecret();
+        if (Math.abs(secret) < (1L << 32) || secret == PUBLISHED_SAMPLE_SECRET) {
+            throw new IllegalStateException("app.visitors.salt-secret must be a private random 64-bit value; "
+                    + "with a known secret, visitor hashes can be brute-forced over the IPv4 space");
+        }
+        this.rotationDays = Math.max(1, config.getSaltRotation().toDays());
+    }
+
+    // Secret-keyed hash of (ip, userAgent); either may be null. Not stored as is, see forDay().
+    public long hash(String ip, String userAgent) {
+        long h = FNV_OFFSET ^ mix(secret);
+        h = fnv(h, ip);
+        h = (h ^ '\n') * FNV_PRIME;
+        h = fnv(h, userAgent);
+        return mix(h);
+    }
+
+    // The visitor hash as stored in the sketch of the given day.
+    long forDay(long visitorHash, LocalDate day) {
+        return mix(visitorHash ^ mix(secret ^ mix(period(day))));
+    }
+
+    // The salt period a sketch day belongs to; sketches only merge into exact unions within one period.
+    long period(LocalDate day) {
+        return Math.floorDiv(day.toEpochDay(), rotationDays);
+    }
+
+    LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    private static long fnv(long h, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h = (h ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return h;
+    }
+
+    // MurmurHash3 64-bit finalizer.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
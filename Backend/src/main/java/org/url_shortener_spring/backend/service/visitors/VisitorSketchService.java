@@ -0,0 +1,221 @@
+package org.url_shortener_spring.backend.service.visitors;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Approximate distinct visitors per short URL per day.
+// Redirects add the visitor hash to an in-memory HyperLogLog for (link, today); a scheduled flush merges
+// those sketches into visitor_sketch rows (a few KB at most per link and day, much less for quiet links).
+// Because sketches merge losslessly, any set of links and any range of days within one salt period (see
+// VisitorHasher) is answered by merging rows; a range spanning periods sums the per-period unions.
+@Slf4j
+@Component
+public class VisitorSketchService {
+
+    private static final String INSERT_EMPTY =
+            "INSERT INTO visitor_sketch (url_mapping_id, visit_day, sketch) " +
+            "SELECT ?, ?, ? WHERE EXISTS (SELECT 1 FROM url_mapping WHERE id = ? AND deleted_at IS NULL) " +
+            "ON CONFLICT (url_mapping_id, visit_day) DO NOTHING";
+    private static final String LOCK_SKETCH =
+            "SELECT sketch FROM visitor_sketch WHERE url_mapping_id = ? AND visit_day = ? FOR UPDATE";
+    private static final String UPDATE_SKETCH =
+            "UPDATE visitor_sketch SET sketch = ? WHERE url_mapping_id = ? AND visit_day = ?";
+    private static final String MAPPING_SKETCHES =
+            "SELECT visit_day, sketch FROM visitor_sketch WHERE url_mapping_id = ? AND visit_day BETWEEN ? AND ?";
+    private static final String USER_SKETCHES =
+            "SELECT s.visit_day, s.sketch FROM visitor_sketch s JOIN url_mapping m ON m.id = s.url_mapping_id " +
+            "WHERE m.user_id = ? AND m.deleted_at IS NULL AND s.visit_day BETWEEN ? AND ?";
+    private static final String DELETE_MAPPING = "DELETE FROM visitor_sketch WHERE url_mapping_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VisitorHasher visitorHasher;
+    private final Map<Key, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    // Guards the hand-off of sketches from pending to retired, so readers never miss one; adds do not take it
+    private final ReentrantReadWriteLock handoffLock = new ReentrantReadWriteLock();
+
+    // Sketches taken out of pending by the previous flush. A redirect thread that looked one up just before
+    // it was taken may still add to it, so the next flush merges it once more (merging twice is harmless).
+    private Map<Key, HyperLogLog> retired = Map.of();
+
+    // Serializes flushes; a ReentrantLock so the JDBC work never pins a virtual thread
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public VisitorSketchService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                VisitorHasher visitorHasher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.visitorHasher = visitorHasher;
+    }
+
+    // Records a visit on the redirect path; the sketch day and the hash's salt period come from one clock read.
+    public void record(long urlMappingId, long visitorHash) {
+        LocalDate day = visitorHasher.today();
+        pending.computeIfAbsent(new Key(urlMappingId, day), key -> new HyperLogLog())
+                .add(visitorHasher.forDay(visitorHash, day));
+    }
+
+    // Merges the in-memory sketches into visitor_sketch.
+    @Scheduled(fixedDelayString = "${app.visitors.flush-interval-ms:60000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        // Sketches stay reachable (in pending or retired) until a flush has written them, and are never
+        // emptied, so an add racing with the flush is at worst written by the next one
+        Map<Key, HyperLogLog> taken = new HashMap<>();
+        Map<Key, HyperLogLog> toWrite;
+        handoffLock.writeLock().lock();
+        try {
+            for (Key key : pending.keySet()) {
+                HyperLogLog sketch = pending.remove(key);
+                if (sketch != null) {
+                    taken.put(key, sketch);
+                }
+            }
+            // The previously retired sketches are folded into the live ones of the same key, which is
+            // harmless as merging is idempotent, and stay retired until this flush commits
+            toWrite = new HashMap<>(retired);
+            taken.forEach((key, sketch) -> toWrite.merge(key, sketch, (older, live) -> {
+                live.merge(older);
+                return live;
+            }));
+            retired = toWrite;
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+        // Written in key order so concurrent flushes on several nodes lock rows in the same order
+        Map<Key, HyperLogLog> batch = new TreeMap<>(Comparator.comparingLong(Key::urlMappingId).thenComparing(Key::day));
+        batch.putAll(toWrite);
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::mergeIntoRow));
+        } catch (RuntimeException e) {
+            // Everything stays retired, so the next flush writes it again
+            log.warn("Failed to flush {} visitor sketches, keeping them for the next flush", batch.size(), e);
+            return;
+        }
+        handoffLock.writeLock().lock();
+        try {
+            // Only the sketches taken now can still receive adds
+            retired = taken;
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+    }
+
+    private void mergeIntoRow(Key key, HyperLogLog sketch) {
+        Date day = Date.valueOf(key.day());
+        jdbcTemplate.update(INSERT_EMPTY, key.urlMappingId(), day, new HyperLogLog().toBytes(), key.urlMappingId());
+        List<byte[]> stored = jdbcTemplate.query(LOCK_SKETCH, (rs, rowNum) -> rs.getBytes(1), key.urlMappingId(), day);
+        if (stored.isEmpty()) {
+            // The mapping was deleted since the visits were recorded
+            return;
+        }
+        // Merged into the stored copy: the in-memory sketch may still be receiving adds
+        HyperLogLog merged = HyperLogLog.fromBytes(stored.get(0));
+        merged.merge(sketch);
+        jdbcTemplate.update(UPDATE_SKETCH, merged.toBytes(), key.urlMappingId(), day);
+    }
+
+    // Distinct visitors of one mapping per day in [from, to], including visits not flushed yet.
+    public VisitorEstimates uniqueVisitors(long urlMappingId, LocalDate from, LocalDate to) {
+        Map<LocalDate, HyperLogLog> sketches = new TreeMap<>();
+        jdbcTemplate.query(MAPPING_SKETCHES, collectInto(sketches), urlMappingId, Date.valueOf(from), Date.valueOf(to));
+        handoffLock.readLock().lock();
+        try {
+            for (Map<Key, HyperLogLog> unflushed : List.of(pending, retired)) {
+                unflushed.forEach((key, sketch) -> {
+                    if (key.urlMappingId() == urlMappingId && !key.day().isBefore(from) && !key.day().isAfter(to)) {
+                        sketches.computeIfAbsent(key.day(), day -> new HyperLogLog()).merge(sketch);
+                    }
+                });
+            }
+        } finally {
+            handoffLock.readLock().unlock();
+        }
+        return estimate(sketches);
+    }
+
+    // Distinct visitors across all of a user's mappings per day in [from, to] (flushed visits only).
+    public VisitorEstimates uniqueVisitorsForUser(long userId, LocalDate from, LocalDate to) {
+        Map<LocalDate, HyperLogLog> sketches = new TreeMap<>();
+        jdbcTemplate.query(USER_SKETCHES, collectInto(sketches), userId, Date.valueOf(from), Date.valueOf(to));
+        return estimate(sketches);
+    }
+
+    // Removes the sketches of a deleted mapping.
+    public void deleteFor(long urlMappingId) {
+        jdbcTemplate.update(DELETE_MAPPING, urlMappingId);
+        handoffLock.writeLock().lock();
+        try {
+            pending.keySet().removeIf(key -> key.urlMappingId() == urlMappingId);
+            Map<Key, HyperLogLog> kept = new HashMap<>(retired);
+            kept.keySet().removeIf(key -> key.urlMappingId() == urlMappingId);
+            retired = kept;
+        } finally {
+            handoffLock.writeLock().unlock();
+        }
+    }
+
+    // Flushes what is still in memory on graceful shutdown.
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    // Estimates each day, and the total as the union of the days within each salt period summed over the
+    // periods: hashes from different periods never match, so a union across them would only add noise.
+    private VisitorEstimates estimate(Map<LocalDate, HyperLogLog> sketches) {
+        Map<LocalDate, Long> byDay = new TreeMap<>();
+        Map<Long, HyperLogLog> unionByPeriod = new HashMap<>();
+        sketches.forEach((day, sketch) -> {
+            byDay.put(day, sketch.estimate());
+            unionByPeriod.computeIfAbsent(visitorHasher.period(day), period -> new HyperLogLog()).merge(sketch);
+        });
+        long total = 0;
+        for (HyperLogLog union : unionByPeriod.values()) {
+            total += union.estimate();
+        }
+        return new VisitorEstimates(byDay, total);
+    }
+
+    private static RowCallbackHandler collectInto(Map<LocalDate, HyperLogLog> sketches) {
+        return rs -> sketches.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new HyperLogLog())
+                .merge(HyperLogLog.fromBytes(rs.getBytes(2)));
+    }
+
+    private record Key(long urlMappingId, LocalDate day) {
+    }
+
+    // Estimated distinct visitors per day, and over the whole range: not the sum of the days, but a visitor
+    // returning in a later salt period counts again.
+    public record VisitorEstimates(Map<LocalDate, Long> byDay, long total) {
+    }
+}
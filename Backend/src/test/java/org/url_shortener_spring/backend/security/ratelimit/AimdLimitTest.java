@@ -0,0 +1,131 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the limit on a manual clock, so window boundaries fall exactly where each case puts them.
+class AimdLimitTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+    private static final long FAST = TARGET / 2;
+    private static final long SLOW = TARGET * 2;
+
+    private final AtomicLong clock = new AtomicLong(-123_456_789L);
+
+    // initial 10, min 2, max 20, backoff 0.5, at least 10 samples, over 10% slow shrinks
+    private final AimdLimit limit = new AimdLimit(10, 2, 20, 0.5, TARGET, WINDOW, 10, 0.1, clock::get);
+
+    @Test
+    void refusesRequestsBeyondTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limit.tryAcquire(), "request " + i);
+        }
+        assertFalse(limit.tryAcquire());
+        assertEquals(10, limit.inFlight());
+        limit.release(FAST, false);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    void initialLimitIsClampedToTheBounds() {
+        assertEquals(20.0, new AimdLimit(50, 2, 20, 0.5, TARGET, WINDOW, 10, 0.1, clock::get).limit());
+        assertEquals(2.0, new AimdLimit(1, 2, 20, 0.5, TARGET, WINDOW, 10, 0.1, clock::get).limit());
+    }
+
+    @Test
+    void nothingChangesBeforeTheWindowEnds() {
+        run(10, FAST, true);
+        clock.addAndGet(WINDOW - 1);
+        run(1, FAST, false);
+        assertEquals(10.0, limit.limit());
+    }
+
+    @Test
+    void aFailureBacksOffOncePerWindow() {
+        run(1, FAST, true);
+        run(1, FAST, true);
+        closeWindow();
+        assertEquals(5.0, limit.limit());
+    }
+
+    @Test
+    void aSingleSlowRequestDoesNotShrinkTheLimit() {
+        run(1, SLOW, false);
+        closeWindow();
+        assertEquals(10.0, limit.limit());
+    }
+
+    @Test
+    void aSlowTailShrinksTheLimit() {
+        run(8, FAST, false);
+        run(2, SLOW, false);
+        closeWindow();
+        assertEquals(5.0, limit.limit());
+    }
+
+    @Test
+    void aSlowFractionAtTheThresholdIsTolerated() {
+        run(9, FAST, false);
+        run(1, SLOW, false);
+        closeWindow();
+        assertEquals(10.0, limit.limit());
+    }
+
+    @Test
+    void growsByOneOnlyWhileHalfTheLimitIsUsed() {
+        // Sequential requests never hold more than one slot
+        run(20, FAST, false);
+        closeWindow();
+        assertEquals(10.0, limit.limit());
+
+        runConcurrently(5);
+        closeWindow();
+        assertEquals(11.0, limit.limit());
+    }
+
+    @Test
+    void staysWithinTheBounds() {
+        for (int i = 0; i < 10; i++) {
+            run(1, FAST, true);
+            closeWindow();
+        }
+        assertEquals(2.0, limit.limit());
+
+        for (int i = 0; i < 30; i++) {
+            runConcurrently((int) limit.limit());
+            closeWindow();
+        }
+        assertEquals(20.0, limit.limit());
+    }
+
+    // Completes count requests one after another.
+    private void run(int count, long latency, boolean failed) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(latency, failed);
+        }
+    }
+
+    // Holds count slots at once, then releases them.
+    private void runConcurrently(int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < count; i++) {
+            limit.release(FAST, false);
+        }
+    }
+
+    // Moves past the window; the next release closes it (and counts in it).
+    private void closeWindow() {
+        clock.addAndGet(WINDOW);
+        run(1, FAST, false);
+    }
+}
@@ -0,0 +1,110 @@
+package org.url_shortener_spring.backend.security.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The bucket takes the time as an argument, so every case runs on a made-up clock.
+class TokenBucketTest {
+
+    private static final long INTERVAL = 1_000;
+    private static final int BURST = 5;
+    private static final long TOLERANCE = INTERVAL * BURST;
+
+    // An arbitrary start, as System.nanoTime() can be anywhere, including negative
+    private static final long T0 = -7_345_000_000L;
+
+    @Test
+    void fullBucketAdmitsExactlyTheBurst() {
+        TokenBucket bucket = new TokenBucket();
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, bucket.tryAcquire(T0, INTERVAL, TOLERANCE), "request " + i);
+        }
+        assertEquals(INTERVAL, bucket.tryAcquire(T0, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    void returnedWaitIsExact() {
+        TokenBucket bucket = drained();
+        long wait = bucket.tryAcquire(T0 + 300, INTERVAL, TOLERANCE);
+        assertEquals(INTERVAL - 300, wait);
+        assertEquals(1, bucket.tryAcquire(T0 + 300 + wait - 1, INTERVAL, TOLERANCE));
+        assertEquals(0, bucket.tryAcquire(T0 + 300 + wait, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    void rejectedRequestsTakeNoToken() {
+        TokenBucket bucket = drained();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(bucket.tryAcquire(T0 + i, INTERVAL, TOLERANCE) > 0);
+        }
+        assertEquals(0, bucket.tryAcquire(T0 + INTERVAL, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    void sustainedRateIsOneTokenPerInterval() {
+        TokenBucket bucket = drained();
+        int admitted = 0;
+        // Ten attempts per interval for 100 intervals
+        for (long now = T0; now < T0 + 100 * INTERVAL; now += INTERVAL / 10) {
+            if (bucket.tryAcquire(now, INTERVAL, TOLERANCE) == 0) {
+                admitted++;
+            }
+        }
+        assertEquals(99, admitted);
+    }
+
+    @Test
+    void idleBucketRefillsToTheBurstAndNoFurther() {
+        TokenBucket bucket = drained();
+        long later = T0 + 1_000 * INTERVAL;
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(0, bucket.tryAcquire(later, INTERVAL, TOLERANCE), "request " + i);
+        }
+        assertEquals(INTERVAL, bucket.tryAcquire(later, INTERVAL, TOLERANCE));
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket();
+        int threads = 16;
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire(T0, INTERVAL, TOLERANCE) == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(BURST, admitted.get());
+    }
+
+    private static TokenBucket drained() {
+        TokenBucket bucket = new TokenBucket();
+        for (int i = 0; i < BURST; i++) {
+            bucket.tryAcquire(T0, INTERVAL, TOLERANCE);
+        }
+        return bucket;
+    }
+}
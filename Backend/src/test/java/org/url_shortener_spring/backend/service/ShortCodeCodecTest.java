@@ -0,0 +1,83 @@
+package org.url_shortener_spring.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortCodeCodecTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    @Test
+    void roundTripsCodesOfEveryLength() {
+        Random random = new Random(42);
+        for (int length = 1; length <= ShortCodeCodec.MAX_LENGTH; length++) {
+            for (String code : List.of("0".repeat(length), "z".repeat(length), randomCode(random, length))) {
+                long packed = ShortCodeCodec.pack(code);
+                assertTrue(ShortCodeCodec.isValid(packed), code);
+                assertTrue(packed > 0, code);
+                assertEquals(length, ShortCodeCodec.length(packed));
+                assertEquals(code, ShortCodeCodec.unpack(packed));
+            }
+        }
+    }
+
+    @Test
+    void packsARangeOfALargerSequence() {
+        String path = "/abc1234?utm=x";
+        assertEquals(ShortCodeCodec.pack("abc1234"), ShortCodeCodec.pack(path, 1, 8));
+    }
+
+    @Test
+    void fromValueMatchesPack() {
+        long value = ShortCodeCodec.pack("0000zzz") & ((1L << 59) - 1);
+        assertEquals(ShortCodeCodec.pack("0000zzz"), ShortCodeCodec.fromValue(value, 7));
+        assertEquals("0000000", ShortCodeCodec.unpack(ShortCodeCodec.fromValue(0, 7)));
+    }
+
+    @Test
+    void leadingZerosStayDistinct() {
+        assertNotEquals(ShortCodeCodec.pack("1"), ShortCodeCodec.pack("01"));
+        assertNotEquals(ShortCodeCodec.pack("0"), ShortCodeCodec.pack("00"));
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        for (String code : List.of("", "abc-123", "abc 123", "abc/123", "ab\u00e9", "0123456789", "\u0660")) {
+            assertEquals(ShortCodeCodec.INVALID, ShortCodeCodec.pack(code), code);
+            assertFalse(ShortCodeCodec.isValid(ShortCodeCodec.pack(code)), code);
+        }
+        assertEquals(ShortCodeCodec.INVALID, ShortCodeCodec.pack("abc", 2, 2));
+    }
+
+    @Test
+    void codesOfEqualLengthSortLikeTheirStrings() {
+        Random random = new Random(7);
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            codes.add(randomCode(random, 7));
+        }
+        List<String> byString = new ArrayList<>(codes);
+        byString.sort(Comparator.naturalOrder());
+        List<String> byPacked = new ArrayList<>(codes);
+        byPacked.sort(Comparator.comparingLong(ShortCodeCodec::pack));
+        assertIterableEquals(byString, byPacked);
+    }
+
+    private static String randomCode(Random random, int length) {
+        StringBuilder code = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            code.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return code.toString();
+    }
+}
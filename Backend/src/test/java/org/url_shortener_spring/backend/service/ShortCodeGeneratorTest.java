@@ -0,0 +1,81 @@
+package org.url_shortener_spring.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShortCodeGeneratorTest {
+
+    private static final long KEY = 0x5DEECE66DL * 0x2545F4914F6CDD1DL;
+
+    @Test
+    void permutationIsABijectionOnASmallDomain() {
+        // 1000 is not a power of two, so outputs outside [0, 1000) are cycle-walked back into it
+        for (long domain : new long[]{1, 2, 3, 1000, 1024}) {
+            FeistelPermutation permutation = new FeistelPermutation(KEY, 5, domain);
+            BitSet seen = new BitSet();
+            for (long value = 0; value < domain; value++) {
+                long image = permutation.permute(value);
+                assertTrue(image >= 0 && image < domain, "image " + image + " outside [0, " + domain + ")");
+                assertFalse(seen.get((int) image), "image " + image + " produced twice");
+                seen.set((int) image);
+            }
+            assertEquals(domain, seen.cardinality());
+        }
+    }
+
+    @Test
+    void differentKeysGiveDifferentPermutations() {
+        FeistelPermutation first = new FeistelPermutation(KEY, 8, 50_000);
+        FeistelPermutation second = new FeistelPermutation(KEY + 1, 8, 50_000);
+        int same = 0;
+        for (long value = 0; value < 1_000; value++) {
+            if (first.permute(value) == second.permute(value)) {
+                same++;
+            }
+        }
+        assertTrue(same < 10, same + " of 1000 values mapped identically");
+    }
+
+    @Test
+    void codesStayWithinTheCodeSpace() {
+        ShortCodeGenerator generator = generator(KEY);
+        Set<Long> codes = new HashSet<>();
+        long[] starts = {0, ShortCodeGenerator.CODE_SPACE / 2, ShortCodeGenerator.CODE_SPACE - 10_000};
+        for (long start : starts) {
+            for (long id = start; id < start + 10_000; id++) {
+                long code = generator.permute(id);
+                assertTrue(code >= 0 && code < ShortCodeGenerator.CODE_SPACE, "code " + code + " outside 62^7");
+                assertTrue(codes.add(code), "code " + code + " issued twice");
+            }
+        }
+        assertEquals(ShortCodeGenerator.CODE_LENGTH,
+                ShortCodeCodec.unpack(ShortCodeCodec.fromValue(generator.permute(0), ShortCodeGenerator.CODE_LENGTH)).length());
+    }
+
+    @Test
+    void rejectsWeakAndPublishedKeys() {
+        for (long key : new long[]{0, 1, -1, 123_456_789, (1L << 32) - 1, 7046029254386353131L}) {
+            assertThrows(IllegalStateException.class, () -> generator(key), "key " + key);
+        }
+    }
+
+    @Test
+    void rejectsADomainLargerThanTheNetwork() {
+        assertThrows(IllegalArgumentException.class, () -> new FeistelPermutation(KEY, 5, 1025));
+    }
+
+    private static ShortCodeGenerator generator(long key) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getShortCode().setPermutationKey(key);
+        return new ShortCodeGenerator(null, appConfig);
+    }
+}
@@ -0,0 +1,142 @@
+package org.url_shortener_spring.backend.service.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Writes archive files with ClickArchiveWriter and reads them back through a fresh mapping.
+class ClickArchiveFileTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 1, 4);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEveryLinkInTimeOrder() throws IOException {
+        Map<Long, List<Long>> clicks = new TreeMap<>();
+        long start = micros(FROM.atTime(8, 30));
+        clicks.put(3L, List.of(start, start, start + 1, start + 90_000_000L));
+        // Gaps of a day need multi-byte varints
+        clicks.put(7L, List.of(start, start + 86_400_000_000L, start + 2 * 86_400_000_000L));
+        // More clicks than the writer's initial buffer
+        List<Long> busy = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            busy.add(start + i * 1_000_003L);
+        }
+        clicks.put(42L, busy);
+
+        write(clicks);
+        ClickArchiveFile file = ClickArchiveFile.open(path());
+
+        assertEquals(FROM, file.fromDay());
+        assertEquals(TO, file.toDay());
+        assertEquals(5_007, file.eventCount());
+        for (Map.Entry<Long, List<Long>> link : clicks.entrySet()) {
+            assertEquals(link.getValue(), scan(file, new long[]{link.getKey()}, micros(FROM), micros(TO) - 1));
+        }
+    }
+
+    @Test
+    void skipsLinksThatAreNotArchived() throws IOException {
+        long click = micros(FROM.atTime(12, 0));
+        write(Map.of(7L, List.of(click)));
+
+        ClickArchiveFile file = ClickArchiveFile.open(path());
+        assertEquals(List.of(click), scan(file, new long[]{1, 7, 100}, micros(FROM), micros(TO)));
+        assertEquals(List.of(), scan(file, new long[]{1, 100}, micros(FROM), micros(TO)));
+    }
+
+    @Test
+    void anEmptyFileHasOnlyAHeader() throws IOException {
+        write(Map.of());
+
+        ClickArchiveFile file = ClickArchiveFile.open(path());
+        assertEquals(0, file.eventCount());
+        assertEquals(ClickArchiveFile.HEADER_BYTES, file.sizeBytes());
+        assertEquals(ClickArchiveFile.HEADER_BYTES, Files.size(path()));
+        assertEquals(List.of(), scan(file, new long[]{1}, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void clicksAtTheWatermarkBoundaryStayOnTheirSide() throws IOException {
+        long first = micros(FROM);
+        long watermark = micros(TO);
+        long last = watermark - 1;
+        write(Map.of(5L, List.of(first, last)));
+
+        ClickArchiveFile file = ClickArchiveFile.open(path());
+        long[] ids = {5};
+        // Both range ends are inclusive
+        assertEquals(List.of(first, last), scan(file, ids, first, last));
+        assertEquals(List.of(last), scan(file, ids, last, watermark));
+        assertEquals(List.of(first), scan(file, ids, first - 1, first));
+        // Nothing at or after the watermark, nothing before the first day
+        assertEquals(List.of(), scan(file, ids, watermark, Long.MAX_VALUE));
+        assertEquals(List.of(), scan(file, ids, Long.MIN_VALUE, first - 1));
+        assertEquals(List.of(), scan(file, ids, first + 1, last - 1));
+    }
+
+    @Test
+    void leavesOnlyTheArchiveFileBehind() throws IOException {
+        write(Map.of(1L, List.of(micros(FROM))));
+        assertEquals(List.of(path()), listDirectory());
+
+        // An abandoned write cleans up after itself
+        try (ClickArchiveWriter writer = new ClickArchiveWriter(directory.resolve("abandoned.cca"), FROM, TO)) {
+            writer.add(1, micros(FROM));
+        }
+        assertEquals(List.of(path()), listDirectory());
+    }
+
+    private void write(Map<Long, List<Long>> clicks) throws IOException {
+        try (ClickArchiveWriter writer = new ClickArchiveWriter(path(), FROM, TO)) {
+            for (Map.Entry<Long, List<Long>> link : new TreeMap<>(clicks).entrySet()) {
+                for (long micros : link.getValue()) {
+                    writer.add(link.getKey(), micros);
+                }
+            }
+            ClickArchiveFile file = writer.finish();
+            assertTrue(Files.exists(file.path()));
+        }
+    }
+
+    private Path path() {
+        return directory.resolve("clicks.cca");
+    }
+
+    private List<Path> listDirectory() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.toList();
+        }
+    }
+
+    private static List<Long> scan(ClickArchiveFile file, long[] ids, long fromMicros, long toMicros) {
+        List<Long> times = new ArrayList<>();
+        file.scan(ids, fromMicros, toMicros, times::add);
+        return times;
+    }
+
+    private static long micros(LocalDate day) {
+        return micros(day.atStartOfDay());
+    }
+
+    private static long micros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,74 @@
+package org.url_shortener_spring.backend.service.trending;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    private static final double EPSILON = 0.001;
+    private static final double DELTA = 0.01;
+
+    @Test
+    void neverUndercountsAndStaysWithinTheErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(EPSILON, DELTA);
+        Map<Long, Long> exact = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(42);
+        int clicks = 200_000;
+        for (int i = 0; i < clicks; i++) {
+            // Skewed like real traffic: a few hot links, a long tail
+            long id = (long) Math.pow(random.nextDouble(), 3) * 20_000;
+            exact.merge(id, 1L, Long::sum);
+            sketch.add(id);
+        }
+
+        assertEquals(clicks, sketch.total());
+        long bound = (long) Math.ceil(EPSILON * clicks);
+        int outside = 0;
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "undercount for " + entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                outside++;
+            }
+        }
+        // Each estimate may exceed the bound with probability delta
+        assertTrue(outside <= Math.ceil(DELTA * exact.size()), outside + " of " + exact.size() + " over the bound");
+    }
+
+    @Test
+    void addReturnsTheNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch(EPSILON, DELTA);
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(sketch.estimate(7) + 1, sketch.add(7));
+        }
+        assertTrue(sketch.estimate(7) >= 5);
+    }
+
+    @Test
+    void neverSeenItemsAreBoundedByTheTotal() {
+        CountMinSketch sketch = new CountMinSketch(EPSILON, DELTA);
+        for (long id = 0; id < 1_000; id++) {
+            sketch.add(id);
+        }
+        assertTrue(sketch.estimate(-1) <= Math.ceil(EPSILON * sketch.total()));
+    }
+
+    @Test
+    void clearForgetsEverything() {
+        CountMinSketch sketch = new CountMinSketch(EPSILON, DELTA);
+        for (int i = 0; i < 100; i++) {
+            sketch.add(i % 3);
+        }
+        sketch.clear();
+        assertEquals(0, sketch.total());
+        for (long id = 0; id < 3; id++) {
+            assertEquals(0, sketch.estimate(id));
+        }
+    }
+}
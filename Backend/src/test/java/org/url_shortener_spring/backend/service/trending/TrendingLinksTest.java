@@ -0,0 +1,120 @@
+package org.url_shortener_spring.backend.service.trending;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.url_shortener_spring.backend.config.AppConfig;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives the slice rings with a manual clock; rotate() stands in for the scheduler.
+class TrendingLinksTest {
+
+    // Start of a 5-minute boundary, so every window's current slice starts here
+    private final AtomicLong clock = new AtomicLong(1_800_000_000_000L);
+
+    private final TrendingLinks trending = newTrending(100);
+
+    @Test
+    void ranksTheHottestLinksFirst() {
+        click(1, 3);
+        click(2, 10);
+        click(3, 5);
+
+        TrendingLinks.Ranking ranking = trending.top(TrendingLinks.Window.ONE_MINUTE, 2);
+        assertEquals(18, ranking.totalClicks());
+        assertEquals(List.of(2L, 3L), ids(ranking));
+        assertEquals(10, ranking.entries().get(0).estimatedClicks());
+    }
+
+    @Test
+    void sumsClicksAcrossTheSlicesOfAWindow() {
+        click(1, 4);
+        advanceSeconds(10);
+        click(1, 6);
+
+        TrendingLinks.Ranking ranking = trending.top(TrendingLinks.Window.ONE_MINUTE, 10);
+        assertEquals(10, ranking.totalClicks());
+        assertEquals(10, ranking.entries().get(0).estimatedClicks());
+    }
+
+    @Test
+    void clicksLeaveAWindowOnceTheirSliceRotatesOut() {
+        click(1, 5);
+        advanceSeconds(50);
+        click(2, 1);
+        assertEquals(List.of(1L, 2L), ids(trending.top(TrendingLinks.Window.ONE_MINUTE, 10)));
+
+        // The first slice is 60s old: out of the minute, still within fifteen minutes
+        advanceSeconds(10);
+        assertEquals(List.of(2L), ids(trending.top(TrendingLinks.Window.ONE_MINUTE, 10)));
+        assertEquals(1, trending.top(TrendingLinks.Window.ONE_MINUTE, 10).totalClicks());
+        assertEquals(List.of(1L, 2L), ids(trending.top(TrendingLinks.Window.FIFTEEN_MINUTES, 10)));
+    }
+
+    @Test
+    void aReusedSliceStartsEmpty() {
+        click(1, 5);
+        // Once round the one-minute ring (six slices plus the spare): the same slice now covers a new period
+        advanceSeconds(70);
+        click(2, 1);
+
+        TrendingLinks.Ranking ranking = trending.top(TrendingLinks.Window.ONE_MINUTE, 10);
+        assertEquals(1, ranking.totalClicks());
+        assertEquals(List.of(2L), ids(ranking));
+    }
+
+    @Test
+    void clicksOnASliceTheSchedulerHasNotPreparedAreSkipped() {
+        // Two slices ahead without rotate(): only the next slice was stamped
+        clock.addAndGet(20_000);
+        click(1, 3);
+        assertEquals(0, trending.top(TrendingLinks.Window.ONE_MINUTE, 10).totalClicks());
+
+        trending.rotate();
+        click(1, 3);
+        assertEquals(3, trending.top(TrendingLinks.Window.ONE_MINUTE, 10).totalClicks());
+    }
+
+    @Test
+    void keepsHotLinksWhenCandidatesOverflow() {
+        TrendingLinks small = newTrending(2);
+        for (int round = 0; round < 20; round++) {
+            small.record(100);
+            small.record(200);
+            // A stream of one-off links that fill and churn the candidate set
+            small.record(1_000 + round);
+        }
+
+        List<Long> top = ids(small.top(TrendingLinks.Window.ONE_MINUTE, 2));
+        assertEquals(List.of(100L, 200L), top.stream().sorted().toList());
+        assertTrue(small.top(TrendingLinks.Window.ONE_MINUTE, 10).entries().size() <= 4);
+    }
+
+    private TrendingLinks newTrending(int topK) {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getTrending().setTopK(topK);
+        return new TrendingLinks(appConfig, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private void click(long urlMappingId, int times) {
+        for (int i = 0; i < times; i++) {
+            trending.record(urlMappingId);
+        }
+    }
+
+    // Moves the clock one second at a time, rotating like the scheduler does.
+    private void advanceSeconds(int seconds) {
+        for (int i = 0; i < seconds; i++) {
+            clock.addAndGet(1_000);
+            trending.rotate();
+        }
+    }
+
+    private static List<Long> ids(TrendingLinks.Ranking ranking) {
+        return ranking.entries().stream().map(TrendingLinks.Entry::urlMappingId).toList();
+    }
+}
@@ -44,15 +44,23 @@ export const useFetchMyShortUrls = (
   return useQuery<ShortUrl[], AxiosError>(
     "myShortUrls",
     async () => {
-      const response = await api.get("/api/urls/myurls", {
-        headers: {
-          "Content-Type": "application/json",
-          Accept: "application/json",
-          Authorization: "Bearer " + token,
-        },
-      });
-      console.log("📊 Fetched URLs:", response.data);
-      return response.data;
+      // The endpoint is keyset-paginated; follow X-Next-Cursor until the last page
+      const urls: ShortUrl[] = [];
+      let cursor: string | undefined;
+      do {
+        const response = await api.get<ShortUrl[]>("/api/urls/myurls", {
+          params: { limit: 1000, cursor },
+          headers: {
+            "Content-Type": "application/json",
+            Accept: "application/json",
+            Authorization: "Bearer " + token,
+          },
+        });
+        urls.push(...response.data);
+        cursor = response.headers["x-next-cursor"];
+      } while (cursor);
+      console.log("📊 Fetched URLs:", urls);
+      return urls;
     },
     {
       enabled: !!token,